@@ -0,0 +1,189 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+
+/**
+ * A persistent store of Git objects, shared by all checkouts and kept across runs.
+ *
+ * <p>The cache holds one bare repository per remote URL. Each fetch goes to the bare repository first, so only the
+ * objects that are not already in the cache are transferred, and the requested commit is kept reachable under {@code
+ * refs/pct/}. The checkout then borrows the objects of the bare repository through {@code objects/info/alternates} (as
+ * {@code git clone --reference} would) and fetches the commit from the bare repository, which copies nothing.
+ *
+ * <p>Checkouts therefore depend on the cache. Repositories are only {@link #evict evicted} before any checkout of the
+ * current run is made; a checkout from a previous run whose objects have been evicted is unusable, which is harmless as
+ * long as every checkout is recreated before it is used. Separate PCT processes must not share a cache directory.
+ */
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+final class GitObjectCache {
+
+    private static final Logger LOGGER = Logger.getLogger(GitObjectCache.class.getName());
+
+    /** Touched on every use of a cached repository, for eviction. */
+    private static final String LAST_USED = "pct-last-used";
+
+    @NonNull
+    private final File directory;
+
+    @CheckForNull
+    private final Duration maxAge;
+
+    private final long maxSize;
+
+    private final ConcurrentMap<File, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param directory the directory holding the bare repositories
+     * @param maxAge repositories that have not been used for longer than this are evicted, or {@code null} for no limit
+     * @param maxSize the total size in bytes above which the least recently used repositories are evicted, or {@code 0}
+     *     for no limit
+     */
+    GitObjectCache(@NonNull File directory, @CheckForNull Duration maxAge, long maxSize) {
+        this.directory = directory;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Fetch the given commit or tag into the cache.
+     *
+     * @return the bare repository containing the commit, which can be fetched from under the ref returned by {@link
+     *     #getRef}
+     */
+    @NonNull
+    File fetch(@NonNull String gitUrl, @NonNull String scmTag) throws IOException, PluginSourcesUnavailableException {
+        File repository = getRepository(gitUrl);
+        synchronized (locks.computeIfAbsent(repository, k -> new Object())) {
+            if (!new File(repository, "objects").isDirectory()) {
+                Files.createDirectories(repository.toPath());
+                PluginCompatTester.runCommand(repository, "git", "init", "--bare");
+            }
+            LOGGER.log(Level.INFO, "Fetching {0} at {1} into cache {2}", new Object[] {gitUrl, scmTag, repository});
+            PluginCompatTester.runCommand(repository, "git", "fetch", "--no-tags", gitUrl, scmTag);
+            PluginCompatTester.runCommand(repository, "git", "update-ref", getRef(scmTag), "FETCH_HEAD");
+            Path lastUsed = new File(repository, LAST_USED).toPath();
+            if (!Files.exists(lastUsed)) {
+                Files.createFile(lastUsed);
+            }
+            Files.setLastModifiedTime(lastUsed, FileTime.from(Instant.now()));
+        }
+        return repository;
+    }
+
+    /**
+     * The ref under which a fetched commit or tag is kept in the cache.
+     */
+    @NonNull
+    static String getRef(@NonNull String scmTag) {
+        return "refs/pct/" + scmTag.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Make the objects of the given cached repository available to the given (freshly initialized) checkout.
+     */
+    static void borrowObjects(@NonNull File repository, @NonNull File checkoutDirectory) throws IOException {
+        Path alternates = checkoutDirectory.toPath().resolve(".git/objects/info/alternates");
+        Files.createDirectories(alternates.getParent());
+        Files.writeString(
+                alternates,
+                new File(repository, "objects").getAbsolutePath() + System.lineSeparator(),
+                StandardCharsets.UTF_8);
+    }
+
+    @NonNull
+    File getRepository(@NonNull String gitUrl) throws PluginSourcesUnavailableException {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(gitUrl.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required by the Java platform", e);
+        }
+        // The repository name for readability, the hash to tell forks apart
+        StringBuilder name = new StringBuilder(PluginCompatTester.getRepoNameFromGitUrl(gitUrl)).append('-');
+        for (int i = 0; i < 6; i++) {
+            name.append(String.format("%02x", hash[i]));
+        }
+        return new File(directory, name.append(".git").toString());
+    }
+
+    /**
+     * Delete the repositories that have not been used within the maximum age, then the least recently used repositories
+     * until the cache fits within the maximum size.
+     */
+    void evict() {
+        File[] children = directory.listFiles(File::isDirectory);
+        if (children == null) {
+            return;
+        }
+        List<File> repositories = new ArrayList<>(List.of(children));
+        repositories.sort(Comparator.comparingLong(GitObjectCache::getLastUsed));
+        Instant now = Instant.now();
+        long totalSize = 0;
+        List<Long> sizes = new ArrayList<>();
+        for (File repository : repositories) {
+            long size = getSize(repository);
+            sizes.add(size);
+            totalSize += size;
+        }
+        for (int i = 0; i < repositories.size(); i++) {
+            File repository = repositories.get(i);
+            boolean expired = maxAge != null
+                    && Instant.ofEpochMilli(getLastUsed(repository))
+                            .plus(maxAge)
+                            .isBefore(now);
+            boolean oversized = maxSize > 0 && totalSize > maxSize;
+            if (!expired && !oversized) {
+                continue;
+            }
+            LOGGER.log(Level.INFO, "Evicting {0} from the Git object cache ({1})", new Object[] {
+                repository, expired ? "unused for longer than " + maxAge : "cache exceeds " + maxSize + " bytes"
+            });
+            try {
+                FileUtils.deleteDirectory(repository);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            totalSize -= sizes.get(i);
+        }
+    }
+
+    private static long getLastUsed(File repository) {
+        File lastUsed = new File(repository, LAST_USED);
+        return lastUsed.isFile() ? lastUsed.lastModified() : repository.lastModified();
+    }
+
+    private static long getSize(File repository) {
+        try (Stream<Path> files = Files.walk(repository.toPath())) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import org.jenkins.tools.test.model.plugin_metadata.DependencyGraph;
+import org.jenkins.tools.test.util.WarExtractor;
+
+/**
+ * Determines which plugins of a WAR may test differently than in a previous (baseline) WAR with the same core: the
+ * plugins that were added or changed, and every plugin that depends on one of them or on a plugin that was removed,
+ * directly or transitively.
+ *
+ * <p>Only the manifests of the plugins are needed, so the analysis does not depend on the metadata extractors.
+ */
+final class ImpactAnalysis {
+
+    private ImpactAnalysis() {}
+
+    /**
+     * The plugins of the current WAR that were added or changed since the baseline WAR, by version or commit.
+     *
+     * @param baseline the manifest of every plugin of the baseline WAR, by plugin ID
+     * @param current the manifest of every plugin of the current WAR, by plugin ID
+     */
+    @NonNull
+    static Set<String> getChanged(@NonNull Map<String, Manifest> baseline, @NonNull Map<String, Manifest> current) {
+        Set<String> result = new TreeSet<>();
+        for (Map.Entry<String, Manifest> entry : current.entrySet()) {
+            Manifest before = baseline.get(entry.getKey());
+            if (before == null
+                    || !Objects.equals(getVersion(before), getVersion(entry.getValue()))
+                    || !Objects.equals(getGitHash(before), getGitHash(entry.getValue()))) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The plugins of the baseline WAR that are not in the current WAR.
+     *
+     * @param baseline the manifest of every plugin of the baseline WAR, by plugin ID
+     * @param current the manifest of every plugin of the current WAR, by plugin ID
+     */
+    @NonNull
+    static Set<String> getRemoved(@NonNull Map<String, Manifest> baseline, @NonNull Map<String, Manifest> current) {
+        Set<String> result = new TreeSet<>(baseline.keySet());
+        result.removeAll(current.keySet());
+        return result;
+    }
+
+    /**
+     * The plugins of the current WAR that were added or changed since the baseline WAR, and every plugin of the current
+     * WAR that depends on one of them, directly or transitively. A plugin that depended on a plugin that was removed
+     * (such as through an optional dependency) is affected too, as are the plugins that depend on it.
+     *
+     * @param baseline the manifest of every plugin of the baseline WAR, by plugin ID
+     * @param current the manifest of every plugin of the current WAR, by plugin ID
+     */
+    @NonNull
+    static Set<String> getAffected(@NonNull Map<String, Manifest> baseline, @NonNull Map<String, Manifest> current) {
+        DependencyGraph graph = getGraph(current);
+        Set<String> changed = new TreeSet<>(getChanged(baseline, current));
+        // The removed plugins are only in the baseline graph
+        for (String pluginId : getGraph(baseline).getTransitiveDependents(getRemoved(baseline, current))) {
+            if (graph.contains(pluginId)) {
+                changed.add(pluginId);
+            }
+        }
+        return graph.getTransitiveDependents(changed);
+    }
+
+    private static DependencyGraph getGraph(Map<String, Manifest> manifests) {
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        for (Map.Entry<String, Manifest> entry : manifests.entrySet()) {
+            dependencies.put(
+                    entry.getKey(),
+                    WarExtractor.parseDependencies(
+                            entry.getValue().getMainAttributes().getValue("Plugin-Dependencies")));
+        }
+        return DependencyGraph.of(dependencies);
+    }
+
+    @CheckForNull
+    private static String getVersion(Manifest manifest) {
+        return manifest.getMainAttributes().getValue("Plugin-Version");
+    }
+
+    /**
+     * The commit of the plugin, as recorded by {@code ModernPluginMetadataExtractor}.
+     */
+    @CheckForNull
+    private static String getGitHash(Manifest manifest) {
+        Attributes attributes = manifest.getMainAttributes();
+        String gitHash = attributes.getValue("Implementation-Build");
+        return gitHash != null ? gitHash : attributes.getValue("Plugin-GitHash");
+    }
+}
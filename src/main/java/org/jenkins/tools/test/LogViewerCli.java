@@ -0,0 +1,104 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jenkins.tools.test.maven.BuildLog;
+import org.jenkins.tools.test.picocli.ExistingFileTypeConverter;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "view-log",
+        mixinStandardHelpOptions = true,
+        description = "Print build logs, whether compressed or not, or the lines of them that match a pattern.",
+        versionProvider = VersionProvider.class)
+public class LogViewerCli implements Callable<Integer> {
+
+    @CommandLine.Parameters(
+            arity = "1..*",
+            paramLabel = "log",
+            description =
+                    "Build logs to read, or directories (such as the logs directory of the working directory) in which to read every build log.",
+            converter = ExistingFileTypeConverter.class)
+    private List<File> logs;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = {"-g", "--grep"},
+            paramLabel = "regex",
+            description =
+                    "Only print the lines that match this regular expression, each prefixed with the build log and line number.")
+    private Pattern grep;
+
+    @Override
+    public Integer call() {
+        return view(System.out) ? 0 : 1;
+    }
+
+    /**
+     * @return {@code true} unless a pattern was given and no line matched
+     */
+    boolean view(PrintStream out) {
+        boolean matched = false;
+        for (File log : getFiles()) {
+            try (InputStream is = BuildLog.read(log);
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(is, Charset.defaultCharset()))) {
+                if (grep == null) {
+                    reader.lines().forEach(out::println);
+                    continue;
+                }
+                String line;
+                int number = 0;
+                while ((line = reader.readLine()) != null) {
+                    number++;
+                    if (grep.matcher(line).find()) {
+                        out.println(log.getPath() + ':' + number + ':' + line);
+                        matched = true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + log, e);
+            }
+        }
+        return grep == null || matched;
+    }
+
+    @SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+    private List<File> getFiles() {
+        List<File> result = new ArrayList<>();
+        for (File log : logs) {
+            if (!log.isDirectory()) {
+                result.add(log);
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(log.toPath())) {
+                result.addAll(files.filter(Files::isRegularFile)
+                        .filter(file -> {
+                            String name = file.getFileName().toString();
+                            return name.endsWith(".log") || name.endsWith(".log" + BuildLog.COMPRESSED_SUFFIX);
+                        })
+                        .sorted()
+                        .map(Path::toFile)
+                        .collect(Collectors.toList()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list " + log, e);
+            }
+        }
+        return result;
+    }
+}
@@ -32,26 +32,43 @@ import hudson.util.VersionNumber;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.jar.Manifest;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
+import org.jenkins.tools.test.exception.MetadataExtractionException;
 import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
 import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+import org.jenkins.tools.test.maven.BuildLog;
 import org.jenkins.tools.test.maven.ExpressionEvaluator;
-import org.jenkins.tools.test.maven.ExternalMavenRunner;
+import org.jenkins.tools.test.maven.MavenRunner;
+import org.jenkins.tools.test.maven.MavenRunnerFactory;
+import org.jenkins.tools.test.model.ConsoleOutput;
+import org.jenkins.tools.test.model.GitFetchStrategy;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.SchedulingOrder;
 import org.jenkins.tools.test.model.hook.BeforeCheckoutContext;
 import org.jenkins.tools.test.model.hook.BeforeCompilationContext;
 import org.jenkins.tools.test.model.hook.BeforeExecutionContext;
@@ -78,11 +95,38 @@ public class PluginCompatTester {
     private static final String LOCAL_CHECKOUT = "<local checkout>";
 
     private final PluginCompatTesterConfig config;
-    private final ExternalMavenRunner runner;
+    private final MavenRunner runner;
+
+    @CheckForNull
+    private final GitObjectCache gitCache;
+
+    @CheckForNull
+    private final TimingHistory timingHistory;
+
+    private final PluginConsole console;
 
     public PluginCompatTester(PluginCompatTesterConfig config) {
+        if (config.isDumpFailedLogs() && config.getConsoleOutput() == ConsoleOutput.FULL) {
+            // The output was already mirrored, and builds would stall on the console while a log is printed
+            throw new IllegalArgumentException("--dump-failed-logs requires --console-output STATUS or NONE");
+        }
         this.config = config;
-        runner = new ExternalMavenRunner(config.getExternalMaven(), config.getMavenSettings(), config.getMavenArgs());
+        runner = MavenRunnerFactory.getRunner(config);
+        timingHistory = config.getTimingFile() != null ? TimingHistory.load(config.getTimingFile()) : null;
+        gitCache = config.getGitCacheDir() != null
+                ? new GitObjectCache(config.getGitCacheDir(), config.getGitCacheMaxAge(), config.getGitCacheMaxSize())
+                : null;
+        console = new PluginConsole(
+                System.out, config.getConsoleOutput() == ConsoleOutput.STATUS, config.isDumpFailedLogs());
+        if (config.isTrustCache() && config.getResultCacheDir() == null) {
+            LOGGER.log(Level.WARNING, "No result cache directory given; testing every plugin");
+        }
+        if (gitCache != null && config.getGitFetchStrategy() != GitFetchStrategy.FULL) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "The Git object cache is not used with the {0} fetch strategy",
+                    config.getGitFetchStrategy());
+        }
     }
 
     @SuppressFBWarnings(
@@ -94,10 +138,22 @@ public class PluginCompatTester {
 
         // Extract the metadata
         WarExtractor warExtractor = new WarExtractor(
-                config.getWar(), serviceHelper, config.getIncludePlugins(), config.getExcludePlugins());
+                config.getWar(),
+                serviceHelper,
+                config.getIncludePlugins(),
+                config.getExcludePlugins(),
+                config.getMetadataIndexDir());
         String coreVersion = warExtractor.extractCoreVersion();
 
+        // Read before the report of this run replaces it, as it may be the same file
+        Map<String, PluginResult> passed = config.getResumeReport() != null
+                ? getPassed(RunReport.load(config.getResumeReport()), coreVersion)
+                : Map.of();
+        List<PluginResult> resumed = new ArrayList<>();
+
         NavigableMap<String, List<Plugin>> pluginsByRepository;
+        // Not for a local checkout, which may have changes that are not part of its commit
+        ResultCache resultCache = null;
 
         if (localCheckoutProvided()) {
             // if a user provides a local checkout we do not also check anything in the way.
@@ -106,9 +162,44 @@ public class PluginCompatTester {
             // Do not perform the before checkout hooks on a local checkout
             List<Plugin> localCheckout = localCheckoutPluginMetadataExtractor.extractMetadata();
             pluginsByRepository = new TreeMap<>(Map.of(LOCAL_CHECKOUT, localCheckout));
+            if (config.getShardCount() > 1) {
+                LOGGER.log(Level.WARNING, "Sharding does not apply to a local checkout; testing all of its plugins");
+            }
+            if (config.getResumeReport() != null) {
+                pluginsByRepository = withoutPassed(pluginsByRepository, passed, resumed);
+            }
         } else {
             List<Plugin> plugins = warExtractor.extractPlugins();
+            if (config.getBaselineWar() != null) {
+                plugins = selectAffected(warExtractor, serviceHelper, coreVersion, plugins);
+            }
             pluginsByRepository = WarExtractor.byRepository(plugins);
+            if (config.getShardCount() > 1) {
+                pluginsByRepository = Sharding.select(
+                        pluginsByRepository, config.getShardIndex(), config.getShardCount(), timingHistory);
+                plugins = pluginsByRepository.values().stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+                LOGGER.log(Level.INFO, "Testing {0} repositories ({1} plugins) in shard {2} of {3}", new Object[] {
+                    pluginsByRepository.size(), plugins.size(), config.getShardIndex(), config.getShardCount()
+                });
+            }
+            if (config.getResumeReport() != null) {
+                pluginsByRepository = withoutPassed(pluginsByRepository, passed, resumed);
+            }
+            if (config.getResultCacheDir() != null) {
+                resultCache = new ResultCache(
+                        config.getResultCacheDir(),
+                        coreVersion,
+                        warExtractor.extractBundledArchives(),
+                        pcth.getActiveHooks(),
+                        config);
+                if (config.isTrustCache()) {
+                    pluginsByRepository = withoutCached(pluginsByRepository, resultCache, coreVersion, resumed);
+                }
+            }
+            plugins =
+                    pluginsByRepository.values().stream().flatMap(List::stream).collect(Collectors.toList());
 
             // Sanity check all plugins in the repository come from the same hash/tag
             for (List<Plugin> pluginList : pluginsByRepository.values()) {
@@ -133,56 +224,446 @@ public class PluginCompatTester {
             }
         }
 
-        PluginCompatibilityTesterException lastException = null;
         LOGGER.log(Level.INFO, "Starting plugin tests on core version {0}", coreVersion);
 
+        /*
+         * Repositories that resolve to the same clone directory must never be tested concurrently, so group them into a
+         * single unit of work. Distinct units may run in parallel.
+         */
+        Map<File, List<Map.Entry<String, List<Plugin>>>> repositoriesByCloneDir = new LinkedHashMap<>();
         for (Map.Entry<String, List<Plugin>> entry : pluginsByRepository.entrySet()) {
-            // Construct a single working directory for the clone
-            String gitUrl = entry.getKey();
+            File cloneDir = getCloneDir(entry.getKey());
+            repositoriesByCloneDir
+                    .computeIfAbsent(cloneDir, k -> new ArrayList<>())
+                    .add(entry);
+        }
 
-            File cloneDir;
-            if (gitUrl.equals(LOCAL_CHECKOUT)) {
-                cloneDir = config.getLocalCheckoutDir();
-            } else {
-                cloneDir = new File(config.getWorkingDir(), getRepoNameFromGitUrl(gitUrl));
-                // All plugins from the same reactor are from the same hash/tag
-                String tag = entry.getValue().get(0).getGitHash();
+        if (gitCache != null) {
+            // Before any checkout borrows objects from the cache
+            gitCache.evict();
+        }
+
+        List<List<Map.Entry<String, List<Plugin>>>> unitRepositories = new ArrayList<>(repositoriesByCloneDir.values());
+        if (config.getSchedulingOrder() == SchedulingOrder.LONGEST_FIRST) {
+            if (timingHistory == null) {
+                LOGGER.log(Level.WARNING, "No timing file given; ordering repositories by plugin count");
+            }
+            Map<String, Duration> estimates =
+                    (timingHistory != null ? timingHistory : new TimingHistory()).estimate(pluginsByRepository);
+            // Stable, so repositories with the same estimate remain in alphabetical order
+            unitRepositories.sort(Comparator.comparingLong(
+                            (List<Map.Entry<String, List<Plugin>>> repositories) -> repositories.stream()
+                                    .mapToLong(entry ->
+                                            estimates.get(entry.getKey()).toMillis())
+                                    .sum())
+                    .reversed());
+        }
 
+        RepositoryScheduler scheduler =
+                new RepositoryScheduler(config.getParallelism(), config.getClonePrefetch(), config.isFailFast());
+        File reportDir = config.getReportDir() != null ? config.getReportDir() : config.getWorkingDir();
+        RunReport report = new RunReport(reportDir);
+        // Keep the report of this run complete, so that it can be resumed in turn
+        resumed.forEach(report::add);
+        List<RepositoryUnit> units = new ArrayList<>();
+        for (List<Map.Entry<String, List<Plugin>>> repositories : unitRepositories) {
+            File cloneDir = getCloneDir(repositories.get(0).getKey());
+            units.add(new RepositoryUnit(coreVersion, cloneDir, repositories, pcth, scheduler, report));
+        }
+        try {
+            scheduler.run(units);
+        } finally {
+            // Plugins that were not tested, e.g. because a failure stopped the run early
+            for (RepositoryUnit unit : units) {
+                for (PluginResult.Builder result : unit.results.values()) {
+                    report.add(result.withStatus(PluginResult.Status.SKIPPED).build());
+                }
+            }
+            try {
+                report.close();
+                LOGGER.log(Level.INFO, "Wrote results to {0}", reportDir);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write results to " + reportDir, e);
+            }
+            if (resultCache != null) {
+                int cached = 0;
+                // Only the results of this run, which were obtained under the current key
+                Set<PluginResult> previous = new HashSet<>(resumed);
                 try {
-                    cloneFromScm(gitUrl, config.getFallbackGitHubOrganization(), tag, cloneDir);
-                } catch (PluginSourcesUnavailableException e) {
-                    lastException = throwOrAddSuppressed(lastException, e, config.isFailFast());
-                    LOGGER.log(
-                            Level.SEVERE,
-                            String.format("Internal error while cloning repository %s at commit %s.", gitUrl, tag),
-                            e);
-                    continue;
+                    for (PluginResult result : report.getResults()) {
+                        if (!previous.contains(result) && resultCache.put(result)) {
+                            cached++;
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to cache results", e);
                 }
+                LOGGER.log(Level.INFO, "Cached the results of {0} plugins in {1}", new Object[] {
+                    cached, config.getResultCacheDir()
+                });
             }
-            // For each of the plugin metadata entries, go test the plugin
-            for (Plugin plugin : entry.getValue()) {
+            if (timingHistory != null) {
                 try {
-                    testPluginAgainst(coreVersion, plugin, cloneDir, pcth);
-                } catch (PluginCompatibilityTesterException e) {
-                    lastException = throwOrAddSuppressed(lastException, e, config.isFailFast());
-                    LOGGER.log(
-                            Level.SEVERE,
-                            String.format(
-                                    "Internal error while executing a test for core %s and plugin %s at version %s.",
-                                    coreVersion, plugin.getName(), plugin.getVersion()),
-                            e);
+                    timingHistory.save(config.getTimingFile());
+                } catch (UncheckedIOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to record durations", e);
+                }
+            }
+            // e.g., stop idle Maven daemons rather than leaving them running until the JVM exits
+            if (runner instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) runner).close();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Failed to close Maven runner", e);
                 }
             }
         }
-        if (lastException != null) {
-            throw lastException;
+    }
+
+    /**
+     * Select the plugins that may test differently than with the baseline WAR: those that were added or changed, and
+     * those that depend on them or on a plugin that was removed. Every plugin is selected if the core differs.
+     */
+    private List<Plugin> selectAffected(
+            WarExtractor warExtractor, ServiceHelper serviceHelper, String coreVersion, List<Plugin> plugins)
+            throws MetadataExtractionException {
+        WarExtractor baseline = new WarExtractor(config.getBaselineWar(), serviceHelper, null, null);
+        String baselineCoreVersion = baseline.extractCoreVersion();
+        if (!baselineCoreVersion.equals(coreVersion)) {
+            LOGGER.log(
+                    Level.INFO,
+                    "The baseline WAR has core version {0} rather than {1}; testing all plugins",
+                    new Object[] {baselineCoreVersion, coreVersion});
+            return plugins;
+        }
+        if (!getLibraries(baseline).equals(getLibraries(warExtractor))) {
+            LOGGER.log(Level.INFO, "The libraries of the baseline WAR differ; testing all plugins");
+            return plugins;
         }
+        Map<String, Manifest> baselineManifests = baseline.extractManifests();
+        Map<String, Manifest> currentManifests = warExtractor.extractManifests();
+        Set<String> changed = ImpactAnalysis.getChanged(baselineManifests, currentManifests);
+        Set<String> removed = ImpactAnalysis.getRemoved(baselineManifests, currentManifests);
+        Set<String> affected = ImpactAnalysis.getAffected(baselineManifests, currentManifests);
+        List<Plugin> result = plugins.stream()
+                .filter(plugin -> affected.contains(plugin.getPluginId()))
+                .collect(Collectors.toList());
+        LOGGER.log(
+                Level.INFO,
+                "{0} plugins changed and {1} were removed since the baseline WAR, and {2} are affected; testing {3} of"
+                        + " {4} plugins",
+                new Object[] {changed.size(), removed.size(), affected.size(), result.size(), plugins.size()});
+        return result;
     }
 
-    private static File createBuildLogFile(File workDirectory, Plugin plugin, String coreVersion) {
+    private static Map<String, Long> getLibraries(WarExtractor warExtractor) {
+        return warExtractor.extractBundledArchives().entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("WEB-INF/lib/"))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    /**
+     * Select the results of a previous run that passed against the given core version.
+     *
+     * @return the selected results, by plugin ID
+     */
+    static Map<String, PluginResult> getPassed(List<PluginResult> previous, String coreVersion) {
+        Map<String, PluginResult> passed = new HashMap<>();
+        for (PluginResult result : previous) {
+            if (result.getStatus() == PluginResult.Status.PASSED
+                    && result.getCoreVersion().equals(coreVersion)) {
+                passed.put(result.getPlugin().getPluginId(), result);
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Remove the plugins that already passed at the same version and commit, dropping repositories with no plugins
+     * left.
+     *
+     * @param passed the results of the plugins that passed in a previous run against the same core version, by plugin
+     *     ID
+     * @param resumed the list to which to add the previous results of the removed plugins
+     */
+    static NavigableMap<String, List<Plugin>> withoutPassed(
+            NavigableMap<String, List<Plugin>> pluginsByRepository,
+            Map<String, PluginResult> passed,
+            List<PluginResult> resumed) {
+        int before = resumed.size();
+        NavigableMap<String, List<Plugin>> result = without(
+                pluginsByRepository,
+                plugin -> {
+                    PluginResult previous = passed.get(plugin.getPluginId());
+                    return previous != null
+                                    && previous.getPlugin().getVersion().equals(plugin.getVersion())
+                                    && Objects.equals(previous.getPlugin().getGitHash(), plugin.getGitHash())
+                            ? previous
+                            : null;
+                },
+                resumed);
+        LOGGER.log(Level.INFO, "Skipping {0} plugins that passed in the previous run", resumed.size() - before);
+        return result;
+    }
+
+    /**
+     * Remove the plugins whose results are cached, dropping repositories with no plugins left.
+     *
+     * @param resumed the list to which to add the cached results of the removed plugins
+     */
+    private static NavigableMap<String, List<Plugin>> withoutCached(
+            NavigableMap<String, List<Plugin>> pluginsByRepository,
+            ResultCache resultCache,
+            String coreVersion,
+            List<PluginResult> resumed) {
+        int before = resumed.size();
+        NavigableMap<String, List<Plugin>> result = without(
+                pluginsByRepository,
+                plugin -> {
+                    PluginResult cached = resultCache.get(plugin, coreVersion);
+                    if (cached != null) {
+                        LOGGER.log(Level.INFO, "Cache hit for {0}: {1}", new Object[] {
+                            plugin.getPluginId(), cached.getStatus()
+                        });
+                    }
+                    return cached;
+                },
+                resumed);
+        LOGGER.log(Level.INFO, "Skipping {0} plugins with cached results", resumed.size() - before);
+        return result;
+    }
+
+    /**
+     * Remove the plugins that have a previous result, dropping repositories with no plugins left.
+     */
+    private static NavigableMap<String, List<Plugin>> without(
+            NavigableMap<String, List<Plugin>> pluginsByRepository,
+            Function<Plugin, PluginResult> previousResult,
+            List<PluginResult> resumed) {
+        NavigableMap<String, List<Plugin>> result = new TreeMap<>(pluginsByRepository.comparator());
+        for (Map.Entry<String, List<Plugin>> entry : pluginsByRepository.entrySet()) {
+            List<Plugin> remaining = new ArrayList<>();
+            for (Plugin plugin : entry.getValue()) {
+                PluginResult previous = previousResult.apply(plugin);
+                if (previous != null) {
+                    resumed.add(previous);
+                } else {
+                    remaining.add(plugin);
+                }
+            }
+            if (!remaining.isEmpty()) {
+                result.put(entry.getKey(), remaining);
+            }
+        }
+        return result;
+    }
+
+    private File getCloneDir(String gitUrl) throws PluginSourcesUnavailableException {
+        if (gitUrl.equals(LOCAL_CHECKOUT)) {
+            return config.getLocalCheckoutDir();
+        }
+        return new File(config.getWorkingDir(), getRepoNameFromGitUrl(gitUrl));
+    }
+
+    /**
+     * The repositories that share a single clone directory. The first repository is cloned when the unit is prepared
+     * (possibly ahead of time by the clone stage); any further repositories overwrite the same directory, so they are
+     * cloned only once the previous repository has been tested.
+     */
+    private final class RepositoryUnit implements RepositoryScheduler.Task {
+
+        private final String coreVersion;
+
+        private final File cloneDir;
+
+        private final List<Map.Entry<String, List<Plugin>>> repositories;
+
+        private final PluginCompatTesterHooks pcth;
+
+        private final RepositoryScheduler scheduler;
+
+        private final RunReport report;
+
+        /** The results of the plugins in this unit, by plugin ID, filled in as the plugins are cloned and tested. */
+        private final Map<String, PluginResult.Builder> results = new LinkedHashMap<>();
+
+        private boolean firstCloned;
+
+        RepositoryUnit(
+                String coreVersion,
+                File cloneDir,
+                List<Map.Entry<String, List<Plugin>>> repositories,
+                PluginCompatTesterHooks pcth,
+                RepositoryScheduler scheduler,
+                RunReport report) {
+            this.coreVersion = coreVersion;
+            this.cloneDir = cloneDir;
+            this.repositories = repositories;
+            this.pcth = pcth;
+            this.scheduler = scheduler;
+            this.report = report;
+            for (Map.Entry<String, List<Plugin>> entry : repositories) {
+                for (Plugin plugin : entry.getValue()) {
+                    results.put(
+                            plugin.getPluginId(),
+                            new PluginResult.Builder().withPlugin(plugin).withCoreVersion(coreVersion));
+                }
+            }
+        }
+
+        @Override
+        public void prepare() throws PluginCompatibilityTesterException {
+            Map.Entry<String, List<Plugin>> first = repositories.get(0);
+            firstCloned = cloneRepository(first.getKey(), first.getValue(), cloneDir, scheduler, results, report);
+        }
+
+        @Override
+        public void run() throws PluginCompatibilityTesterException {
+            for (int i = 0; i < repositories.size(); i++) {
+                Map.Entry<String, List<Plugin>> entry = repositories.get(i);
+                boolean cloned = i == 0
+                        ? firstCloned
+                        : cloneRepository(entry.getKey(), entry.getValue(), cloneDir, scheduler, results, report);
+                if (cloned) {
+                    testRepository(coreVersion, entry.getValue(), cloneDir, pcth, scheduler, results, report);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clone the given repository unless it is a local checkout.
+     *
+     * @return {@code true} if the repository is ready to be tested, {@code false} if cloning failed and the failure has
+     *     been recorded
+     */
+    private boolean cloneRepository(
+            String gitUrl,
+            List<Plugin> plugins,
+            File cloneDir,
+            RepositoryScheduler scheduler,
+            Map<String, PluginResult.Builder> results,
+            RunReport report)
+            throws PluginCompatibilityTesterException {
+        if (gitUrl.equals(LOCAL_CHECKOUT)) {
+            return true;
+        }
+        // All plugins from the same reactor are from the same hash/tag
+        String tag = plugins.get(0).getGitHash();
+
+        // Only multi-module repositories can be checked out sparsely
+        Set<String> sparseModules = null;
+        if (config.isSparseCheckout() && plugins.stream().allMatch(plugin -> plugin.getModule() != null)) {
+            sparseModules = plugins.stream().map(Plugin::getModule).collect(Collectors.toCollection(TreeSet::new));
+        }
+
+        /*
+         * Multi-module repositories may be built with -Dset.changelist, for which the changelist extension computes the
+         * version from the history of the commit, so they need more than a shallow clone.
+         */
+        GitFetchStrategy fetchStrategy = config.getGitFetchStrategy();
+        if (fetchStrategy == GitFetchStrategy.SHALLOW
+                && plugins.stream().anyMatch(plugin -> plugin.getModule() != null)) {
+            LOGGER.log(
+                    Level.INFO,
+                    "Fetching multi-module repository {0} without file contents rather than shallowly",
+                    gitUrl);
+            fetchStrategy = GitFetchStrategy.BLOBLESS;
+        }
+
+        long start = System.nanoTime();
+        Exception failure = null;
+        try {
+            cloneFromScm(
+                    gitUrl,
+                    config.getFallbackGitHubOrganization(),
+                    tag,
+                    cloneDir,
+                    gitCache,
+                    fetchStrategy,
+                    sparseModules);
+        } catch (PluginSourcesUnavailableException | RuntimeException e) {
+            failure = e;
+        }
+        // The clone is shared by the plugins of the repository
+        Duration share = Duration.ofNanos(System.nanoTime() - start).dividedBy(plugins.size());
+        for (Plugin plugin : plugins) {
+            PluginResult.Builder result = results.get(plugin.getPluginId())
+                    .withStage(PluginResult.Stage.CLONE)
+                    .withDuration(PluginResult.Stage.CLONE, share);
+            if (failure != null) {
+                finish(report, result.withStatus(PluginResult.Status.FAILED).withException(failure));
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            scheduler.recordFailure((PluginSourcesUnavailableException) failure);
+            LOGGER.log(
+                    Level.SEVERE,
+                    String.format("Internal error while cloning repository %s at commit %s.", gitUrl, tag),
+                    failure);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Record the final result of a plugin.
+     */
+    private void finish(RunReport report, PluginResult.Builder builder) {
+        PluginResult result = builder.build();
+        report.add(result);
+        console.finished(result);
+        // A failed build says little about how long a complete one takes
+        if (timingHistory != null && result.getStatus() == PluginResult.Status.PASSED) {
+            for (Map.Entry<PluginResult.Stage, Duration> entry :
+                    result.getDurations().entrySet()) {
+                timingHistory.record(
+                        result.getPlugin().getPluginId(), entry.getKey().getName(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Test each of the plugins from a repository that has already been cloned.
+     */
+    private void testRepository(
+            String coreVersion,
+            List<Plugin> plugins,
+            File cloneDir,
+            PluginCompatTesterHooks pcth,
+            RepositoryScheduler scheduler,
+            Map<String, PluginResult.Builder> results,
+            RunReport report)
+            throws PluginCompatibilityTesterException {
+        // For each of the plugin metadata entries, go test the plugin
+        for (Plugin plugin : plugins) {
+            PluginResult.Builder result = results.get(plugin.getPluginId());
+            try {
+                testPluginAgainst(coreVersion, plugin, cloneDir, pcth, result);
+                finish(report, result.withStatus(PluginResult.Status.PASSED));
+            } catch (RuntimeException e) {
+                finish(report, result.withStatus(PluginResult.Status.FAILED).withException(e));
+                throw e;
+            } catch (PluginCompatibilityTesterException e) {
+                finish(report, result.withStatus(PluginResult.Status.FAILED).withException(e));
+                scheduler.recordFailure(e);
+                LOGGER.log(
+                        Level.SEVERE,
+                        String.format(
+                                "Internal error while executing a test for core %s and plugin %s at version %s.",
+                                coreVersion, plugin.getName(), plugin.getVersion()),
+                        e);
+            }
+        }
+    }
+
+    private static File createBuildLogFile(File workDirectory, Plugin plugin, String coreVersion, boolean compressed) {
         File f = new File(workDirectory.getAbsolutePath()
                 + File.separator
-                + createBuildLogFilePathFor(plugin.getPluginId(), plugin.getVersion(), coreVersion));
+                + createBuildLogFilePathFor(plugin.getPluginId(), plugin.getVersion(), coreVersion)
+                + (compressed ? BuildLog.COMPRESSED_SUFFIX : ""));
         try {
             Files.createDirectories(f.getParentFile().toPath());
             Files.deleteIfExists(f.toPath());
@@ -197,7 +678,12 @@ public class PluginCompatTester {
         return String.format("logs/%s/v%s_against_core_version_%s.log", pluginId, pluginVersion, coreVersion);
     }
 
-    private void testPluginAgainst(String coreVersion, Plugin plugin, File cloneLocation, PluginCompatTesterHooks pcth)
+    private void testPluginAgainst(
+            String coreVersion,
+            Plugin plugin,
+            File cloneLocation,
+            PluginCompatTesterHooks pcth,
+            PluginResult.Builder result)
             throws PluginCompatibilityTesterException {
         LOGGER.log(
                 Level.INFO,
@@ -211,7 +697,10 @@ public class PluginCompatTester {
                         + "#############################################\n\n\n\n\n",
                 new Object[] {plugin.getName(), plugin.getVersion(), coreVersion});
 
-        File buildLogFile = createBuildLogFile(config.getWorkingDir(), plugin, coreVersion);
+        File buildLogFile =
+                createBuildLogFile(config.getWorkingDir(), plugin, coreVersion, config.isCompressBuildLogs());
+        result.withLog(buildLogFile);
+        console.started(plugin, coreVersion);
 
         // Run the before compile hooks
         BeforeCompilationContext beforeCompile =
@@ -242,19 +731,57 @@ public class PluginCompatTester {
         if (setChangelist) {
             properties.put("set.changelist", "true");
         }
-        runner.run(properties, cloneLocation, plugin.getModule(), buildLogFile, "clean", "process-test-classes");
 
         List<String> args = new ArrayList<>();
         args.add("hpi:resolve-test-dependencies");
         args.add("hpi:test-hpl");
         args.add("surefire:test");
 
+        timed(
+                result,
+                PluginResult.Stage.COMPILE,
+                () -> runner.run(
+                        properties, cloneLocation, plugin.getModule(), buildLogFile, "clean", "process-test-classes"));
+
         // Run preexecution hooks
         BeforeExecutionContext forExecutionHooks =
                 new BeforeExecutionContext(coreVersion, plugin, config, cloneLocation, args);
         pcth.runBeforeExecution(forExecutionHooks);
 
-        properties = new LinkedHashMap<>(config.getMavenProperties());
+        // Execute with tests
+        Map<String, String> executionProperties = getExecutionProperties(coreVersion, setChangelist);
+        timed(
+                result,
+                PluginResult.Stage.TEST,
+                () -> runner.run(
+                        executionProperties,
+                        cloneLocation,
+                        plugin.getModule(),
+                        buildLogFile,
+                        args.toArray(new String[0])));
+    }
+
+    @FunctionalInterface
+    private interface MavenInvocation {
+        void run() throws PluginCompatibilityTesterException;
+    }
+
+    /**
+     * Run the given Maven invocation as the given stage, recording its duration whether or not it succeeds.
+     */
+    private static void timed(PluginResult.Builder result, PluginResult.Stage stage, MavenInvocation invocation)
+            throws PluginCompatibilityTesterException {
+        result.withStage(stage);
+        long start = System.nanoTime();
+        try {
+            invocation.run();
+        } finally {
+            result.withDuration(stage, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private Map<String, String> getExecutionProperties(String coreVersion, boolean setChangelist) {
+        Map<String, String> properties = new LinkedHashMap<>(config.getMavenProperties());
         properties.put("overrideWar", config.getWar().toString());
         properties.put("jenkins.version", coreVersion);
         properties.put("useUpperBounds", "true");
@@ -273,18 +800,17 @@ public class PluginCompatTester {
              */
             properties.put("upperBoundsExcludes", "javax.servlet:servlet-api");
         }
-
-        // Execute with tests
-        runner.run(
-                Collections.unmodifiableMap(properties),
-                cloneLocation,
-                plugin.getModule(),
-                buildLogFile,
-                args.toArray(new String[0]));
+        return Collections.unmodifiableMap(properties);
     }
 
     private static void cloneFromScm(
-            String url, String fallbackGitHubOrganization, String scmTag, File checkoutDirectory)
+            String url,
+            String fallbackGitHubOrganization,
+            String scmTag,
+            File checkoutDirectory,
+            @CheckForNull GitObjectCache gitCache,
+            GitFetchStrategy fetchStrategy,
+            @CheckForNull Set<String> sparseModules)
             throws PluginSourcesUnavailableException {
         List<String> gitUrls = new ArrayList<>();
         gitUrls.add(url);
@@ -375,7 +901,7 @@ public class PluginCompatTester {
                     "git://github.com/jenkinsci/theme-manager-plugin",
                     "https://github.com/jenkinsci/theme-manager-plugin");
             try {
-                cloneImpl(gitUrl, scmTag, checkoutDirectory);
+                cloneImpl(gitUrl, scmTag, checkoutDirectory, gitCache, fetchStrategy, sparseModules);
                 return; // checkout was ok
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
@@ -399,14 +925,32 @@ public class PluginCompatTester {
      *   <li><code>git checkout FETCH_HEAD</code>
      * </ul>
      *
+     * <p>If the checkout directory already contains a checkout of the same remote (using the same {@link
+     * GitObjectCache}, if any, and the same fetch strategy and sparseness), it is reused instead: the commit is fetched
+     * into the existing repository, and the working tree is forcibly checked out and cleaned of untracked and ignored
+     * files, which leaves it in the same state as a fresh clone.
+     *
+     * <p>With a {@link GitObjectCache}, the commit is first fetched into the cache, and the checkout then borrows the
+     * objects of the cache and fetches the commit from it rather than from {@code url}.
+     *
      * @param gitUrl The git native URL, see the <a
      *     href="https://git-scm.com/docs/git-clone#_git_urls">git documentation</a> for the
      *     supported syntax
      * @param scmTag the tag or sha1 hash to clone
      * @param checkoutDirectory the directory in which to clone the Git repository
+     * @param gitCache the cache of Git objects, if any; only used with {@link GitFetchStrategy#FULL}
+     * @param fetchStrategy how much of the history to fetch
+     * @param sparseModules if not {@code null}, check out only the given modules, the modules they need, and the POMs
+     *     of the other modules; see {@link SparseCheckout}
      * @throws IOException if an error occurs
      */
-    private static void cloneImpl(String gitUrl, String scmTag, File checkoutDirectory)
+    static void cloneImpl(
+            String gitUrl,
+            String scmTag,
+            File checkoutDirectory,
+            @CheckForNull GitObjectCache gitCache,
+            GitFetchStrategy fetchStrategy,
+            @CheckForNull Set<String> sparseModules)
             throws IOException, PluginSourcesUnavailableException {
         LOGGER.log(Level.INFO, "Checking out from Git repository {0} at {1}", new Object[] {gitUrl, scmTag});
 
@@ -426,14 +970,142 @@ public class PluginCompatTester {
          *     git fetch ${CONNECTION_URL} ${SCM_TAG} (this will work with a SHA1 hash or a tag)
          *     git checkout FETCH_HEAD
          */
+        if (fetchStrategy != GitFetchStrategy.FULL) {
+            gitCache = null;
+        }
+        String layout = fetchStrategy + (sparseModules != null ? "+sparse" : "");
         if (checkoutDirectory.isDirectory()) {
+            if (isReusable(gitUrl, checkoutDirectory, gitCache, layout)) {
+                // A failure to fetch is a problem with the remote, which a fresh clone would not fix
+                fetch(gitUrl, scmTag, checkoutDirectory, gitCache, fetchStrategy);
+                try {
+                    checkout(checkoutDirectory, sparseModules, true);
+                    // Twice -f to also remove nested repositories, -x to also remove ignored files such as target/
+                    runCommand(checkoutDirectory, "git", "clean", "-ffdx");
+                    LOGGER.log(Level.FINE, "Reused existing checkout in {0}", checkoutDirectory);
+                    return;
+                } catch (PluginSourcesUnavailableException e) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            "Failed to reset existing checkout in " + checkoutDirectory + "; cloning afresh",
+                            e);
+                }
+            }
             FileUtils.deleteDirectory(checkoutDirectory);
         }
         Files.createDirectories(checkoutDirectory.toPath());
 
         runCommand(checkoutDirectory, "git", "init");
-        runCommand(checkoutDirectory, "git", "fetch", gitUrl, scmTag);
-        runCommand(checkoutDirectory, "git", "checkout", "FETCH_HEAD");
+        runCommand(checkoutDirectory, "git", "remote", "add", "origin", gitUrl);
+        runCommand(checkoutDirectory, "git", "config", "pct.layout", layout);
+        if (gitCache != null) {
+            GitObjectCache.borrowObjects(gitCache.getRepository(gitUrl), checkoutDirectory);
+        }
+        fetch(gitUrl, scmTag, checkoutDirectory, gitCache, fetchStrategy);
+        checkout(checkoutDirectory, sparseModules, false);
+    }
+
+    private static void fetch(
+            String gitUrl,
+            String scmTag,
+            File checkoutDirectory,
+            @CheckForNull GitObjectCache gitCache,
+            GitFetchStrategy fetchStrategy)
+            throws IOException, PluginSourcesUnavailableException {
+        switch (fetchStrategy) {
+            case SHALLOW:
+                runCommand(checkoutDirectory, "git", "fetch", "--depth", "1", "origin", scmTag);
+                break;
+            case BLOBLESS:
+                // Makes origin a promisor remote, from which missing file contents are fetched on checkout
+                runCommand(checkoutDirectory, "git", "fetch", "--filter=blob:none", "origin", scmTag);
+                break;
+            default:
+                if (gitCache != null) {
+                    File repository = gitCache.fetch(gitUrl, scmTag);
+                    runCommand(
+                            checkoutDirectory,
+                            "git",
+                            "fetch",
+                            repository.getAbsolutePath(),
+                            GitObjectCache.getRef(scmTag));
+                } else {
+                    runCommand(checkoutDirectory, "git", "fetch", gitUrl, scmTag);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Check out {@code FETCH_HEAD}. A sparse checkout first checks out only the POMs, from which the modules that are
+     * needed are determined, and then widens the checkout to those modules.
+     */
+    private static void checkout(File checkoutDirectory, @CheckForNull Set<String> sparseModules, boolean force)
+            throws IOException, PluginSourcesUnavailableException {
+        if (sparseModules != null) {
+            setSparsePatterns(checkoutDirectory, SparseCheckout.POMS_ONLY);
+        }
+        if (force) {
+            runCommand(checkoutDirectory, "git", "checkout", "--force", "--detach", "FETCH_HEAD");
+        } else {
+            runCommand(checkoutDirectory, "git", "checkout", "FETCH_HEAD");
+        }
+        if (sparseModules != null) {
+            List<String> patterns = SparseCheckout.getPatterns(checkoutDirectory, sparseModules);
+            if (patterns != null) {
+                setSparsePatterns(checkoutDirectory, patterns);
+            } else {
+                runCommand(checkoutDirectory, "git", "sparse-checkout", "disable");
+            }
+        }
+    }
+
+    private static void setSparsePatterns(File checkoutDirectory, List<String> patterns)
+            throws IOException, PluginSourcesUnavailableException {
+        List<String> command = new ArrayList<>(List.of("git", "sparse-checkout", "set", "--no-cone"));
+        command.addAll(patterns);
+        runCommand(checkoutDirectory, command.toArray(new String[0]));
+    }
+
+    /**
+     * Whether the given directory holds a checkout of the given remote whose objects are stored as they would be in a
+     * fresh clone: borrowed from the current cache repository if there is a cache, and stored locally otherwise, and
+     * fetched and checked out in the same way ({@code layout}).
+     */
+    private static boolean isReusable(
+            String gitUrl, File checkoutDirectory, @CheckForNull GitObjectCache gitCache, String layout)
+            throws IOException, PluginSourcesUnavailableException {
+        if (!new File(checkoutDirectory, ".git").isDirectory()) {
+            return false;
+        }
+        String remoteUrl;
+        String existingLayout;
+        try {
+            remoteUrl = runCommand(checkoutDirectory, "git", "config", "--get", "remote.origin.url");
+            existingLayout = runCommand(checkoutDirectory, "git", "config", "--get", "pct.layout");
+        } catch (PluginSourcesUnavailableException e) {
+            // Not a repository, or a checkout made before the remote and layout were recorded
+            return false;
+        }
+        if (!remoteUrl.equals(gitUrl)) {
+            LOGGER.log(Level.FINE, "Existing checkout in {0} is of {1}", new Object[] {checkoutDirectory, remoteUrl});
+            return false;
+        }
+        if (!existingLayout.equals(layout)) {
+            LOGGER.log(Level.FINE, "Existing checkout in {0} is {1}", new Object[] {checkoutDirectory, existingLayout});
+            return false;
+        }
+        Path alternates = checkoutDirectory.toPath().resolve(".git/objects/info/alternates");
+        String borrowed = Files.isRegularFile(alternates)
+                ? Files.readString(alternates, StandardCharsets.UTF_8).trim()
+                : null;
+        String expected =
+                gitCache != null ? new File(gitCache.getRepository(gitUrl), "objects").getAbsolutePath() : null;
+        if (!Objects.equals(borrowed, expected) || (expected != null && !new File(expected).isDirectory())) {
+            LOGGER.log(Level.FINE, "Existing checkout in {0} uses a different object store", checkoutDirectory);
+            return false;
+        }
+        return true;
     }
 
     private static List<String> getFallbackGitUrl(
@@ -480,7 +1152,7 @@ public class PluginCompatTester {
      * @throws PluginCompatibilityTesterException if {@code throwException == true} then {@caught}
      *     is thrown.
      */
-    private static <T extends PluginCompatibilityTesterException> T throwOrAddSuppressed(
+    static <T extends PluginCompatibilityTesterException> T throwOrAddSuppressed(
             @CheckForNull PluginCompatibilityTesterException current, T caught, boolean throwException) throws T {
         if (throwException) {
             throw caught;
@@ -495,11 +1167,12 @@ public class PluginCompatTester {
      * Runs the given command, waiting until it has completed before returning.
      * @param directory the directory to run the command in.
      * @param commandAndArgs the command and arguments to run.
+     * @return the output of the command (standard output and standard error), trimmed.
      * @throws IOException if the process could not be started.
      * @throws PluginSourcesUnavailableException if the command failed (either it was interrupted or exited with a non zero status.
      */
     @SuppressFBWarnings(value = "COMMAND_INJECTION", justification = "intended behaviour")
-    private static void runCommand(File directory, String... commandAndArgs)
+    static String runCommand(File directory, String... commandAndArgs)
             throws IOException, PluginSourcesUnavailableException {
         Process p = new ProcessBuilder()
                 .directory(directory)
@@ -516,7 +1189,9 @@ public class PluginCompatTester {
                 throw new PluginSourcesUnavailableException(
                         String.join(" ", commandAndArgs) + " failed with exit status " + exitStatus + ": " + output);
             }
+            return output;
         } catch (InterruptedException e) {
+            p.destroy();
             throw new PluginSourcesUnavailableException(String.join(" ", commandAndArgs) + " was interrupted", e);
         }
     }
@@ -31,13 +31,18 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
 import org.jenkins.tools.test.logging.LoggingConfiguration;
+import org.jenkins.tools.test.maven.MavenRunnerType;
+import org.jenkins.tools.test.model.ConsoleOutput;
+import org.jenkins.tools.test.model.GitFetchStrategy;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.model.SchedulingOrder;
 import org.jenkins.tools.test.picocli.ExistingFileTypeConverter;
 import picocli.CommandLine;
 
@@ -136,6 +141,13 @@ public class PluginCompatTesterCli implements Callable<Integer> {
                     "Comma-separated list of arguments to pass to Maven (like -Pxxx; not to be confused with Java arguments or Maven properties). These arguments will be passed to Maven both during compilation and when running tests.")
     private List<String> mavenArgs;
 
+    @CommandLine.Option(
+            names = "--maven-runner",
+            paramLabel = "runner",
+            description =
+                    "How to run Maven: EXTERNAL starts a new Maven process for every invocation; DAEMON keeps a pool of warm Maven JVMs (one per --parallelism) and reuses them across invocations. Defaults to EXTERNAL.")
+    private MavenRunnerType mavenRunner = MavenRunnerType.EXTERNAL;
+
     @CheckForNull
     @CommandLine.Option(
             names = "--external-hooks-jars",
@@ -162,6 +174,151 @@ public class PluginCompatTesterCli implements Callable<Integer> {
                     "If multiple plugins are specified, fail the overall run after the first plugin failure occurs rather than continuing to test other plugins.")
     private boolean failFast = true;
 
+    @CommandLine.Option(
+            names = "--parallelism",
+            paramLabel = "N",
+            description =
+                    "Number of repositories to test concurrently. Plugins from the same repository are always tested serially. Defaults to 1.")
+    private int parallelism = 1;
+
+    @CommandLine.Option(
+            names = "--clone-prefetch",
+            paramLabel = "K",
+            description =
+                    "Number of repositories to clone ahead of the build stage, so that Git fetches overlap with Maven builds. Cloned repositories that are waiting to be built count against this limit. Defaults to 0 (clone each repository just before testing it).")
+    private int clonePrefetch;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--git-cache-dir",
+            description =
+                    "Directory in which to keep a bare repository per remote across runs. Fetches then only transfer objects that are not already cached, and checkouts borrow their objects from the cache. Must not be shared by concurrent PCT processes.")
+    private File gitCacheDir;
+
+    @CommandLine.Option(
+            names = "--git-cache-max-age",
+            paramLabel = "DAYS",
+            description =
+                    "Evict cached repositories that have not been used for this many days. 0 disables age-based eviction. Defaults to 30.")
+    private int gitCacheMaxAge = 30;
+
+    @CommandLine.Option(
+            names = "--git-cache-max-size",
+            paramLabel = "MB",
+            description =
+                    "Evict the least recently used cached repositories while the cache exceeds this many megabytes. Defaults to 0 (no limit).")
+    private long gitCacheMaxSize;
+
+    @CommandLine.Option(
+            names = "--git-fetch-strategy",
+            paramLabel = "strategy",
+            description =
+                    "How much of the history of each repository to fetch: FULL (the commit and its history, through the Git object cache if any), SHALLOW (only the commit, as with --depth 1; multi-module repositories, whose version may be computed from their history, are fetched as with BLOBLESS), or BLOBLESS (the history without file contents, which are fetched on checkout, as with --filter=blob:none). Defaults to FULL.")
+    private GitFetchStrategy gitFetchStrategy = GitFetchStrategy.FULL;
+
+    @CommandLine.Option(
+            names = "--sparse-checkout",
+            description =
+                    "For multi-module repositories, check out only the modules under test, the modules they depend on or inherit from, and the POMs of the other modules.")
+    private boolean sparseCheckout;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--metadata-index-dir",
+            description =
+                    "Directory in which to keep an index of the metadata of every plugin in each WAR across runs, so that repeated runs against the same WAR (such as shards selected with --include-plugins) do not extract the metadata again.")
+    private File metadataIndexDir;
+
+    @CommandLine.Option(
+            names = "--shard-index",
+            paramLabel = "i",
+            description =
+                    "Zero-based index of the shard of repositories to test, out of --shard-count. Every repository is assigned to exactly one shard. Defaults to 0.")
+    private int shardIndex;
+
+    @CommandLine.Option(
+            names = "--shard-count",
+            paramLabel = "n",
+            description =
+                    "Number of shards across which to partition the repositories in the WAR, for distributing a run across several nodes. Defaults to 1.")
+    private int shardCount = 1;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--timing-file",
+            description =
+                    "File of the durations of previous runs, with which to balance the shards and order the repositories by estimated duration. The durations of this run are recorded in the file at the end of the run. Every node of a sharded run must start from the same file.")
+    private File timingFile;
+
+    @CommandLine.Option(
+            names = "--scheduling-order",
+            paramLabel = "order",
+            description =
+                    "The order in which to test repositories: ALPHABETICAL (by Git URL) or LONGEST_FIRST (by estimated duration from --timing-file, which minimizes the duration of parallel runs). Defaults to ALPHABETICAL.")
+    private SchedulingOrder schedulingOrder = SchedulingOrder.ALPHABETICAL;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--report-dir",
+            description =
+                    "Directory in which to write the results of the run, as JSON Lines (pct-report.jsonl, updated as each plugin completes) and JUnit XML (pct-report.xml, written at the end of the run). Defaults to the working directory.")
+    private File reportDir;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--resume",
+            paramLabel = "report",
+            description =
+                    "The pct-report.jsonl of a previous run. Plugins that passed in that run against the same core version, at the same plugin version and Git commit, are not tested again; failed and untested plugins are. May be the report of this run.")
+    private File resumeReport;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--result-cache-dir",
+            description =
+                    "Directory in which to cache the result of each plugin, keyed by the core version, the plugin and its Git commit, the libraries and plugins bundled in the WAR, the hooks in use, and the Maven properties and arguments. Results are only read with --trust-cache. May be shared by concurrent runs.")
+    private File resultCacheDir;
+
+    @CommandLine.Option(
+            names = "--trust-cache",
+            description =
+                    "Report the cached result of a plugin, if there is one, instead of testing it. The JDK and the contents of the Maven repository are not part of the cache key.")
+    private boolean trustCache;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--baseline-war",
+            description =
+                    "A previous WAR to compare the WAR with. Only the plugins that were added or changed (by version or Git commit) since the previous WAR, and the plugins that depend on them directly or transitively, are tested. Every plugin is tested if the core differs. Only the manifests of the plugins are read.",
+            converter = ExistingFileTypeConverter.class)
+    private File baselineWar;
+
+    @CommandLine.Option(
+            names = "--console-output",
+            paramLabel = "mode",
+            description =
+                    "What the output of Maven builds shows on the console: FULL (the output of every build, line by line), STATUS (a line for each plugin as it starts and finishes, with the path to its build log), or NONE. The full output of each build is always written to its build log. Defaults to FULL.")
+    private ConsoleOutput consoleOutput = ConsoleOutput.FULL;
+
+    @CommandLine.Option(
+            names = "--dump-failed-logs",
+            description =
+                    "Print the build log of each plugin that fails to the console in one contiguous block, once the plugin has finished. Requires --console-output STATUS or NONE.")
+    private boolean dumpFailedLogs;
+
+    @CommandLine.Option(
+            names = "--compress-build-logs",
+            description =
+                    "Compress build logs with gzip as they are written, naming them *.log.gz. Use the view-log command to view or search them.")
+    private boolean compressBuildLogs;
+
+    @CommandLine.Option(
+            names = "--build-log-max-size",
+            paramLabel = "MB",
+            description =
+                    "Keep at most this many megabytes of the output of each Maven invocation in its build log, before compression: the start and at most the last megabyte, with a marker in place of the rest. Defaults to 0 (no limit).")
+    private long buildLogMaxSize;
+
     @Override
     public Integer call() throws PluginCompatibilityTesterException {
         try {
@@ -189,11 +346,33 @@ public class PluginCompatTesterCli implements Callable<Integer> {
         if (mavenArgs != null) {
             config.setMavenArgs(mavenArgs);
         }
+        config.setMavenRunner(mavenRunner);
         if (externalHooksJars != null) {
             config.setExternalHooksJars(externalHooksJars);
         }
         config.setLocalCheckoutDir(localCheckoutDir);
         config.setFailFast(failFast);
+        config.setParallelism(parallelism);
+        config.setClonePrefetch(clonePrefetch);
+        config.setGitCacheDir(gitCacheDir);
+        config.setGitCacheMaxAge(gitCacheMaxAge > 0 ? Duration.ofDays(gitCacheMaxAge) : null);
+        config.setGitCacheMaxSize(gitCacheMaxSize * 1024 * 1024);
+        config.setGitFetchStrategy(gitFetchStrategy);
+        config.setSparseCheckout(sparseCheckout);
+        config.setMetadataIndexDir(metadataIndexDir);
+        config.setShardIndex(shardIndex);
+        config.setShardCount(shardCount);
+        config.setTimingFile(timingFile);
+        config.setSchedulingOrder(schedulingOrder);
+        config.setReportDir(reportDir);
+        config.setResumeReport(resumeReport);
+        config.setResultCacheDir(resultCacheDir);
+        config.setTrustCache(trustCache);
+        config.setBaselineWar(baselineWar);
+        config.setConsoleOutput(consoleOutput);
+        config.setDumpFailedLogs(dumpFailedLogs);
+        config.setCompressBuildLogs(compressBuildLogs);
+        config.setBuildLogMaxSize(buildLogMaxSize * 1024 * 1024);
 
         PluginCompatTester tester = new PluginCompatTester(config);
         tester.testPlugins();
@@ -0,0 +1,95 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.maven.BuildLog;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * Reports the progress of plugins on the console when the output of their builds is not mirrored to it.
+ *
+ * <p>Each plugin gets one line when its tests start and one when it finishes, so the console stays readable however
+ * many plugins are tested in parallel. The build log of a failed plugin can also be printed in one contiguous block.
+ * Every write holds the lock of the console stream, so the block is not interleaved with the lines of other plugins.
+ * Builds must not be copying their output to the console at the same time, or they would stall until the block has
+ * been printed.
+ */
+final class PluginConsole {
+
+    private static final Logger LOGGER = Logger.getLogger(PluginConsole.class.getName());
+
+    @NonNull
+    private final PrintStream console;
+
+    private final boolean status;
+
+    private final boolean dumpFailedLogs;
+
+    /**
+     * @param status whether to print a status line for each plugin
+     * @param dumpFailedLogs whether to print the build log of each plugin that fails
+     */
+    PluginConsole(@NonNull PrintStream console, boolean status, boolean dumpFailedLogs) {
+        this.console = console;
+        this.status = status;
+        this.dumpFailedLogs = dumpFailedLogs;
+    }
+
+    /**
+     * Report that the tests of a plugin are starting.
+     */
+    void started(@NonNull Plugin plugin, @NonNull String coreVersion) {
+        if (status) {
+            console.println(String.format(
+                    "%-7s %s %s against core version %s",
+                    "TESTING", plugin.getPluginId(), plugin.getVersion(), coreVersion));
+        }
+    }
+
+    /**
+     * Report the final result of a plugin.
+     */
+    void finished(@NonNull PluginResult result) {
+        Plugin plugin = result.getPlugin();
+        File log = result.getLog();
+        boolean dump = dumpFailedLogs && result.getStatus() == PluginResult.Status.FAILED && log != null;
+        if (!status && !dump) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(String.format(
+                "%-7s %s %s in %.1f s",
+                result.getStatus(),
+                plugin.getPluginId(),
+                plugin.getVersion(),
+                result.getTotalDuration().toMillis() / 1000.0));
+        if (result.getStatus() == PluginResult.Status.FAILED && result.getStage() != null) {
+            line.append(" at ").append(result.getStage().getName());
+        }
+        if (log != null) {
+            line.append(" (").append(log).append(')');
+        }
+        synchronized (console) {
+            if (status) {
+                console.println(line);
+            }
+            if (dump) {
+                console.println(
+                        "======== Build log of " + plugin.getPluginId() + " " + plugin.getVersion() + " ========");
+                try (InputStream is = BuildLog.read(log)) {
+                    is.transferTo(console);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to print build log " + log, e);
+                }
+                console.println();
+                console.println("======== End of build log of " + plugin.getPluginId() + " ========");
+            }
+            console.flush();
+        }
+    }
+}
@@ -78,10 +78,18 @@ public class PluginListerCli implements Callable<Integer> {
                     "Comma-separated list of plugin artifact IDs to skip. If not set, only the plugins specified by --plugins will be listed (or all plugins otherwise).")
     private Set<String> excludePlugins;
 
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--metadata-index-dir",
+            description =
+                    "Directory in which to keep an index of the metadata of every plugin in each WAR across runs, so that repeated runs against the same WAR (such as shards selected with --include-plugins) do not extract the metadata again.")
+    private File metadataIndexDir;
+
     @Override
     public Integer call() throws MetadataExtractionException {
         ServiceHelper serviceHelper = new ServiceHelper(externalHooksJars);
-        WarExtractor warExtractor = new WarExtractor(warFile, serviceHelper, includePlugins, excludePlugins);
+        WarExtractor warExtractor =
+                new WarExtractor(warFile, serviceHelper, includePlugins, excludePlugins, metadataIndexDir);
         List<Plugin> plugins = warExtractor.extractPlugins();
 
         if (output != null) {
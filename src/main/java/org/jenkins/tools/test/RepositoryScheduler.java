@@ -0,0 +1,231 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+
+/**
+ * Runs units of work (typically all the plugins from a single repository) on a fixed pool of worker threads. Work
+ * within a single unit is performed serially by the unit itself; distinct units run concurrently.
+ *
+ * <p>Optionally, the scheduler operates as a two stage pipeline: a clone stage {@link Task#prepare() prepares} up to
+ * {@code prefetch} units ahead of the build stage, so that network-bound work (e.g., {@code git fetch}) overlaps with
+ * CPU-bound work (e.g., Maven). Prepared units that the build stage has not yet picked up count against the prefetch
+ * limit, which bounds the disk space consumed by checkouts that are waiting to be built.
+ *
+ * <p>Failures are aggregated in the same way as {@link PluginCompatTester#throwOrAddSuppressed}: if fail fast is
+ * enabled the first failure cancels all in-flight and pending units, otherwise each failure is recorded and a combined
+ * exception is thrown once all units have completed.
+ */
+class RepositoryScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(RepositoryScheduler.class.getName());
+
+    /**
+     * A single unit of work.
+     */
+    @FunctionalInterface
+    interface Task {
+
+        /**
+         * Prepare the unit for {@link #run()}, e.g. by cloning its repository. When prefetching is enabled, this runs on
+         * the clone stage, possibly while other units are being built; otherwise it runs immediately before
+         * {@link #run()} on the same thread.
+         */
+        default void prepare() throws PluginCompatibilityTesterException {}
+
+        void run() throws PluginCompatibilityTesterException;
+    }
+
+    private final int parallelism;
+
+    private final int prefetch;
+
+    private final boolean failFast;
+
+    @CheckForNull
+    private PluginCompatibilityTesterException lastException;
+
+    RepositoryScheduler(int parallelism, boolean failFast) {
+        this(parallelism, 0, failFast);
+    }
+
+    /**
+     * @param parallelism the number of units to build concurrently
+     * @param prefetch the maximum number of units to prepare ahead of the build stage, or {@code 0} to prepare each unit
+     *     on the build stage immediately before it is run
+     * @param failFast whether to cancel all remaining work after the first failure
+     */
+    RepositoryScheduler(int parallelism, int prefetch, boolean failFast) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (prefetch < 0) {
+            throw new IllegalArgumentException("prefetch must not be negative: " + prefetch);
+        }
+        this.parallelism = parallelism;
+        this.prefetch = prefetch;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Record a failure from a task. If fail fast is enabled, {@code e} is rethrown so that the task stops and the
+     * remaining work is cancelled.
+     */
+    synchronized void recordFailure(@NonNull PluginCompatibilityTesterException e)
+            throws PluginCompatibilityTesterException {
+        lastException = PluginCompatTester.throwOrAddSuppressed(lastException, e, failFast);
+    }
+
+    /**
+     * Run the given tasks, waiting for all of them to complete.
+     *
+     * @throws PluginCompatibilityTesterException the first failure if fail fast is enabled, otherwise the last failure
+     *     (with earlier failures suppressed) once all tasks have completed
+     */
+    void run(@NonNull List<? extends Task> tasks) throws PluginCompatibilityTesterException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new WorkerThreadFactory("pct-worker-"));
+        ExecutorService cloneExecutor =
+                prefetch > 0 ? Executors.newFixedThreadPool(prefetch, new WorkerThreadFactory("pct-clone-")) : null;
+        OrderedSemaphore prefetched = new OrderedSemaphore(prefetch);
+        try {
+            CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                int ticket = i;
+                if (cloneExecutor == null) {
+                    completionService.submit(() -> {
+                        task.prepare();
+                        task.run();
+                        return null;
+                    });
+                } else {
+                    Future<Void> prepared = cloneExecutor.submit(() -> {
+                        prefetched.acquire(ticket);
+                        task.prepare();
+                        return null;
+                    });
+                    completionService.submit(() -> {
+                        try {
+                            prepared.get();
+                        } catch (ExecutionException e) {
+                            throw unwrap(e);
+                        } finally {
+                            prefetched.release();
+                        }
+                        task.run();
+                        return null;
+                    });
+                }
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    completionService.take().get();
+                } catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    if (cloneExecutor != null) {
+                        cloneExecutor.shutdownNow();
+                    }
+                    throw unwrap(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PluginCompatibilityTesterException("Interrupted while waiting for tests to complete", e);
+        } finally {
+            if (cloneExecutor != null) {
+                shutdown(cloneExecutor);
+            }
+            shutdown(executor);
+        }
+        synchronized (this) {
+            if (lastException != null) {
+                throw lastException;
+            }
+        }
+    }
+
+    private static PluginCompatibilityTesterException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof PluginCompatibilityTesterException) {
+            return (PluginCompatibilityTesterException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new PluginCompatibilityTesterException(cause);
+    }
+
+    /**
+     * Cancel any remaining work and give in-flight tasks a chance to clean up (e.g., destroy their Maven processes).
+     */
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.log(Level.WARNING, "Timed out waiting for cancelled tests to terminate");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A semaphore whose permits are acquired strictly in ticket order. The build stage consumes units in submission
+     * order, so if a later unit could take the last permit while an earlier unit is still waiting for one, the build
+     * stage would wait forever for the earlier unit.
+     */
+    private static class OrderedSemaphore {
+
+        private final Semaphore semaphore;
+
+        private int next;
+
+        OrderedSemaphore(int permits) {
+            this.semaphore = new Semaphore(permits);
+        }
+
+        synchronized void acquire(int ticket) throws InterruptedException {
+            while (ticket != next) {
+                wait();
+            }
+            semaphore.acquire();
+            next++;
+            notifyAll();
+        }
+
+        void release() {
+            semaphore.release();
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        WorkerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, prefix + count.incrementAndGet());
+        }
+    }
+}
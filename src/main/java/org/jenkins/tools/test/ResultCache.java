@@ -0,0 +1,199 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.maven.DaemonMavenRunner;
+import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * A content-addressed cache of the results of testing plugins, so that a plugin is not tested again when nothing that
+ * determines its result has changed.
+ *
+ * <p>The key of a result is a hash of the core version, the plugin and the commit it was built from, the CRC-32 of every
+ * library and plugin bundled in the WAR, the hooks in use, the Maven properties and arguments, the contents of the
+ * Maven settings, and the libraries of the Maven installation (which identify its version). The JDK and the contents of
+ * the Maven repository are not part of the key, which is why cached results are only used on request. Each
+ * result is a file holding the same JSON as a line of the run report, written atomically, so concurrent runs may share
+ * the directory.
+ *
+ * <p>Only plugins that passed are cached. A failure may come from the environment rather than the plugin (the network,
+ * a dependency download, or an interrupted build), and a cached failure would be reported in every later run without
+ * the plugin being tested again. Plugins without a known commit are never cached.
+ */
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+final class ResultCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ResultCache.class.getName());
+
+    /** Incremented whenever the key or the format of the entries changes. */
+    private static final int VERSION = 2;
+
+    @NonNull
+    private final File directory;
+
+    /** The part of the key that is common to all plugins. */
+    @NonNull
+    private final String context;
+
+    ResultCache(
+            @NonNull File directory,
+            @NonNull String coreVersion,
+            @NonNull Map<String, Long> bundledArchives,
+            @NonNull Collection<String> hooks,
+            @NonNull PluginCompatTesterConfig config) {
+        this.directory = directory;
+        StringBuilder sb = new StringBuilder();
+        field(sb, "version", Integer.toString(VERSION));
+        field(sb, "coreVersion", coreVersion);
+        new TreeMap<>(bundledArchives).forEach((name, crc) -> field(sb, "archive", name + '@' + Long.toHexString(crc)));
+        hooks.stream().sorted().forEach(hook -> field(sb, "hook", hook));
+        new TreeMap<>(config.getMavenProperties()).forEach((key, value) -> field(sb, "property", key + '=' + value));
+        config.getMavenArgs().forEach(arg -> field(sb, "arg", arg));
+        field(sb, "mavenSettings", config.getMavenSettings() != null ? sha256(config.getMavenSettings()) : null);
+        File mavenHome = DaemonMavenRunner.getMavenHome(config.getExternalMaven());
+        if (mavenHome != null) {
+            field(sb, "mavenHome", mavenHome.getAbsolutePath());
+            String[] libraries = new File(mavenHome, "lib").list();
+            if (libraries != null) {
+                Arrays.stream(libraries).sorted().forEach(library -> field(sb, "mavenLibrary", library));
+            }
+        }
+        this.context = sb.toString();
+    }
+
+    private static void field(StringBuilder sb, String name, @CheckForNull String value) {
+        // NUL cannot appear in any of the inputs, so distinct inputs cannot produce the same string
+        sb.append(name).append('\0').append(value).append('\0');
+    }
+
+    /**
+     * The key of the result of the given plugin.
+     *
+     * @return the key, or {@code null} if the plugin cannot be cached
+     */
+    @CheckForNull
+    String getKey(@NonNull Plugin plugin) {
+        if (plugin.getGitHash() == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(context);
+        field(sb, "pluginId", plugin.getPluginId());
+        field(sb, "pluginVersion", plugin.getVersion());
+        field(sb, "gitUrl", plugin.getGitUrl());
+        field(sb, "gitHash", plugin.getGitHash());
+        field(sb, "module", plugin.getModule());
+        return sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(File file) {
+        try {
+            return sha256(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required by the Java platform", e);
+        }
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest(bytes)) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+    /**
+     * The cached result of the given plugin, without durations, as no time is spent testing it.
+     *
+     * @return the result, or {@code null} if none is cached
+     */
+    @CheckForNull
+    PluginResult get(@NonNull Plugin plugin, @NonNull String coreVersion) {
+        String key = getKey(plugin);
+        if (key == null) {
+            return null;
+        }
+        File file = new File(directory, key + ".json");
+        PluginResult cached;
+        try {
+            cached = RunReport.fromJson(
+                    Files.readString(file.toPath(), StandardCharsets.UTF_8).strip());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable cached result " + file, e);
+            return null;
+        }
+        if (!cached.getPlugin().getPluginId().equals(plugin.getPluginId())) {
+            LOGGER.log(Level.WARNING, "Ignoring cached result {0} of another plugin", file);
+            return null;
+        }
+        if (cached.getStatus() != PluginResult.Status.PASSED) {
+            LOGGER.log(Level.WARNING, "Ignoring cached result {0} of a plugin that did not pass", file);
+            return null;
+        }
+        return new PluginResult.Builder()
+                .withPlugin(plugin)
+                .withCoreVersion(coreVersion)
+                .withStatus(cached.getStatus())
+                .withStage(cached.getStage())
+                .withException(cached.getException())
+                .withLog(cached.getLog())
+                .withCached(true)
+                .build();
+    }
+
+    /**
+     * Cache the given result, if it can be cached.
+     *
+     * @return {@code true} if the result was cached
+     */
+    boolean put(@NonNull PluginResult result) throws IOException {
+        if (result.isCached() || result.getStatus() != PluginResult.Status.PASSED) {
+            return false;
+        }
+        String key = getKey(result.getPlugin());
+        if (key == null) {
+            return false;
+        }
+        Files.createDirectories(directory.toPath());
+        Path target = new File(directory, key + ".json").toPath();
+        Path tmp = Files.createTempFile(directory.toPath(), key, ".tmp");
+        try {
+            Files.writeString(tmp, RunReport.toJson(result) + '\n', StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return true;
+    }
+}
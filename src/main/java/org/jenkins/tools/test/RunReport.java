@@ -0,0 +1,475 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * The results of a run, in machine-readable form.
+ *
+ * <p>The results are appended to a JSON Lines file ({@value #JSON_REPORT}) as soon as each is known, and forced to disk,
+ * so that a run that crashes still leaves the results of the plugins it completed. A crash while a line is being
+ * written leaves at most one incomplete line at the end of the file, which {@link #load} skips, so the file can be used
+ * as a checkpoint from which to resume the run. A JUnit XML report ({@value #JUNIT_REPORT}) with a test case per plugin
+ * is written once the run ends.
+ */
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+final class RunReport implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(RunReport.class.getName());
+
+    static final String JSON_REPORT = "pct-report.jsonl";
+
+    static final String JUNIT_REPORT = "pct-report.xml";
+
+    @NonNull
+    private final File directory;
+
+    @NonNull
+    private final FileChannel json;
+
+    private final List<PluginResult> results = new ArrayList<>();
+
+    private final Set<String> pluginIds = new HashSet<>();
+
+    private boolean closed;
+
+    RunReport(@NonNull File directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory.toPath());
+            json = FileChannel.open(
+                    new File(directory, JSON_REPORT).toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create report in " + directory, e);
+        }
+    }
+
+    /**
+     * Record the result of a plugin, unless a result has already been recorded for it or the report is closed.
+     */
+    synchronized void add(@NonNull PluginResult result) {
+        if (closed || !pluginIds.add(result.getPlugin().getPluginId())) {
+            return;
+        }
+        results.add(result);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((toJson(result) + '\n').getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                json.write(buffer);
+            }
+            json.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                    "Failed to write result of " + result.getPlugin().getPluginId(), e);
+        }
+    }
+
+    /**
+     * Close the JSON report and write the JUnit report. Results added after this are ignored.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        json.close();
+
+        Element testsuite = DocumentHelper.createElement("testsuite");
+        testsuite.addAttribute("name", "plugin-compat-tester");
+        testsuite.addAttribute("tests", Integer.toString(results.size()));
+        testsuite.addAttribute("failures", Long.toString(count(PluginResult.Status.FAILED)));
+        testsuite.addAttribute("skipped", Long.toString(count(PluginResult.Status.SKIPPED)));
+        testsuite.addAttribute(
+                "time",
+                toSeconds(results.stream().map(PluginResult::getTotalDuration).reduce(Duration.ZERO, Duration::plus)));
+        for (PluginResult result : results) {
+            Plugin plugin = result.getPlugin();
+            Element testcase = testsuite.addElement("testcase");
+            testcase.addAttribute("classname", plugin.getGitUrl());
+            testcase.addAttribute("name", plugin.getPluginId() + " " + plugin.getVersion());
+            testcase.addAttribute("time", toSeconds(result.getTotalDuration()));
+            if (result.getStatus() == PluginResult.Status.FAILED) {
+                Element failure = testcase.addElement("failure");
+                failure.addAttribute(
+                        "message",
+                        "Failed in stage "
+                                + (result.getStage() != null ? result.getStage().getName() : "?"));
+                if (result.getException() != null) {
+                    failure.addText(result.getException());
+                }
+            } else if (result.getStatus() == PluginResult.Status.SKIPPED) {
+                testcase.addElement("skipped");
+            }
+            if (result.isCached()) {
+                testcase.addElement("system-out")
+                        .addText("Result from the result cache"
+                                + (result.getLog() != null ? "; build log: " + result.getLog() : ""));
+            } else if (result.getLog() != null) {
+                testcase.addElement("system-out").addText("Build log: " + result.getLog());
+            }
+        }
+        Document document = DocumentHelper.createDocument(testsuite);
+        StringWriter w = new StringWriter();
+        XMLWriter writer = new XMLWriter(w, OutputFormat.createPrettyPrint());
+        writer.write(document);
+        writer.flush();
+        write(JUNIT_REPORT, w.toString());
+    }
+
+    /**
+     * The results recorded so far, in the order they were recorded.
+     */
+    @NonNull
+    synchronized List<PluginResult> getResults() {
+        return List.copyOf(results);
+    }
+
+    /**
+     * Replace the given file in the report directory with the given contents, such that a crash at any point leaves
+     * either the previous or the new contents.
+     */
+    private void write(String name, String contents) throws IOException {
+        Path target = new File(directory, name).toPath();
+        Path tmp = Files.createTempFile(directory.toPath(), name, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Load the results from the JSON report of a previous run. Lines that cannot be parsed are skipped.
+     */
+    @NonNull
+    static List<PluginResult> load(@NonNull File file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read report " + file, e);
+        }
+        List<PluginResult> result = new ArrayList<>();
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                result.add(fromJson(line));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                LOGGER.log(Level.WARNING, "Ignoring malformed line in " + file + ": " + line, e);
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    static PluginResult fromJson(@NonNull String line) {
+        Map<String, Object> object = new JsonParser(line).parse();
+        Plugin plugin = new Plugin.Builder()
+                .withPluginId((String) object.get("pluginId"))
+                .withVersion((String) object.get("version"))
+                .withGitUrl((String) object.get("gitUrl"))
+                .withGitHash((String) object.get("gitHash"))
+                .withModule((String) object.get("module"))
+                .build();
+        PluginResult.Builder builder = new PluginResult.Builder()
+                .withPlugin(plugin)
+                .withCoreVersion((String) object.get("coreVersion"))
+                .withStatus(PluginResult.Status.valueOf((String) object.get("status")))
+                .withException((String) object.get("exception"));
+        String stage = (String) object.get("stage");
+        if (stage != null) {
+            builder.withStage(PluginResult.Stage.valueOf(stage.toUpperCase(Locale.ROOT)));
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> durations = (Map<String, Object>) object.get("durations");
+        if (durations != null) {
+            for (Map.Entry<String, Object> entry : durations.entrySet()) {
+                builder.withDuration(
+                        PluginResult.Stage.valueOf(entry.getKey().toUpperCase(Locale.ROOT)),
+                        Duration.ofMillis(((Number) entry.getValue()).longValue()));
+            }
+        }
+        String log = (String) object.get("log");
+        if (log != null) {
+            builder.withLog(new File(log));
+        }
+        builder.withCached(Boolean.TRUE.equals(object.get("cached")));
+        return builder.build();
+    }
+
+    private long count(PluginResult.Status status) {
+        return results.stream().filter(result -> result.getStatus() == status).count();
+    }
+
+    private static String toSeconds(Duration duration) {
+        return String.format(Locale.ROOT, "%.3f", duration.toMillis() / 1000.0);
+    }
+
+    @NonNull
+    static String toJson(@NonNull PluginResult result) {
+        Plugin plugin = result.getPlugin();
+        StringBuilder sb = new StringBuilder("{");
+        appendField(sb, "pluginId", plugin.getPluginId());
+        appendField(sb, "version", plugin.getVersion());
+        appendField(sb, "gitUrl", plugin.getGitUrl());
+        appendField(sb, "gitHash", plugin.getGitHash());
+        appendField(sb, "module", plugin.getModule());
+        appendField(sb, "coreVersion", result.getCoreVersion());
+        appendField(sb, "status", result.getStatus().name());
+        appendField(sb, "stage", result.getStage() != null ? result.getStage().getName() : null);
+        sb.append(",\"durations\":{");
+        boolean first = true;
+        for (Map.Entry<PluginResult.Stage, Duration> entry :
+                result.getDurations().entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendString(sb, entry.getKey().getName());
+            sb.append(':').append(entry.getValue().toMillis());
+        }
+        sb.append('}');
+        appendField(sb, "exception", result.getException());
+        appendField(sb, "log", result.getLog() != null ? result.getLog().getPath() : null);
+        sb.append(",\"cached\":").append(result.isCached());
+        return sb.append('}').toString();
+    }
+
+    private static void appendField(StringBuilder sb, String name, @CheckForNull String value) {
+        if (sb.length() > 1) {
+            sb.append(',');
+        }
+        appendString(sb, name);
+        sb.append(':');
+        if (value == null) {
+            sb.append("null");
+        } else {
+            appendString(sb, value);
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * A parser for the subset of JSON written by {@link #toJson}: objects of strings, integers, booleans, {@code null},
+     * and nested objects.
+     */
+    private static final class JsonParser {
+
+        private final String json;
+
+        private int position;
+
+        JsonParser(String json) {
+            this.json = json;
+        }
+
+        Map<String, Object> parse() {
+            Map<String, Object> result = parseObject();
+            skipWhitespace();
+            if (position != json.length()) {
+                throw new IllegalArgumentException("Trailing characters at " + position);
+            }
+            return result;
+        }
+
+        private Map<String, Object> parseObject() {
+            expect('{');
+            Map<String, Object> result = new LinkedHashMap<>();
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return result;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                result.put(key, parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect('}');
+                    return result;
+                }
+            }
+        }
+
+        @CheckForNull
+        private Object parseValue() {
+            char c = peek();
+            if (c == '{') {
+                return parseObject();
+            } else if (c == '"') {
+                return parseString();
+            } else if (json.startsWith("null", position)) {
+                position += 4;
+                return null;
+            } else if (json.startsWith("true", position)) {
+                position += 4;
+                return true;
+            } else if (json.startsWith("false", position)) {
+                position += 5;
+                return false;
+            }
+            int start = position;
+            if (c == '-') {
+                position++;
+            }
+            while (position < json.length() && Character.isDigit(json.charAt(position))) {
+                position++;
+            }
+            try {
+                return Long.parseLong(json.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unexpected value at " + start, e);
+            }
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return sb.toString();
+                } else if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                c = next();
+                switch (c) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > json.length()) {
+                            throw new IllegalArgumentException("Truncated escape at " + position);
+                        }
+                        sb.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        sb.append(c);
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        private char peek() {
+            if (position >= json.length()) {
+                throw new IllegalArgumentException("Unexpected end of input");
+            }
+            return json.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at " + (position - 1));
+            }
+        }
+    }
+}
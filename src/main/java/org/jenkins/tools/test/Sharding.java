@@ -0,0 +1,76 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * Partitions repositories across the nodes of a distributed run, so that each repository is tested by exactly one
+ * node.
+ *
+ * <p>Repositories are assigned heaviest first, each to the shard with the least total weight so far (the longest
+ * processing time heuristic). The weight of a repository is its estimated duration from the timing history if one is
+ * given, or else the number of its plugins. Ties are broken by Git URL and shard index, so every node computes the same
+ * partition from the same WAR and the same timing history.
+ */
+final class Sharding {
+
+    private Sharding() {}
+
+    /**
+     * Select the repositories of the given shard.
+     *
+     * @param shardIndex the zero-based index of the shard
+     * @param shardCount the total number of shards
+     * @param history the timing history with which to balance the shards, or {@code null} to balance by plugin count
+     * @return the repositories of the shard, in the same order as the input
+     */
+    @NonNull
+    static NavigableMap<String, List<Plugin>> select(
+            @NonNull NavigableMap<String, List<Plugin>> pluginsByRepository,
+            int shardIndex,
+            int shardCount,
+            @CheckForNull TimingHistory history) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(
+                    "shardIndex must be between 0 and " + (shardCount - 1) + ": " + shardIndex);
+        }
+        Map<String, Long> weights = new HashMap<>();
+        if (history != null) {
+            history.estimate(pluginsByRepository)
+                    .forEach((gitUrl, duration) -> weights.put(gitUrl, duration.toMillis()));
+        } else {
+            pluginsByRepository.forEach((gitUrl, plugins) -> weights.put(gitUrl, (long) plugins.size()));
+        }
+
+        List<String> repositories = new ArrayList<>(pluginsByRepository.keySet());
+        repositories.sort(Comparator.comparing((String gitUrl) -> weights.get(gitUrl))
+                .reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        long[] loads = new long[shardCount];
+        NavigableMap<String, List<Plugin>> result = new TreeMap<>(pluginsByRepository.comparator());
+        for (String gitUrl : repositories) {
+            int shard = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (loads[i] < loads[shard]) {
+                    shard = i;
+                }
+            }
+            loads[shard] += weights.get(gitUrl);
+            if (shard == shardIndex) {
+                result.put(gitUrl, pluginsByRepository.get(gitUrl));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,185 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Computes the sparse checkout patterns that limit a checkout of a multi-module repository to the modules under test.
+ *
+ * <p>Maven requires the POM of every module in the reactor to be present, even when only some modules are built, and
+ * the root of the repository may contain files the build refers to (such as {@code .mvn}). The patterns therefore
+ * include everything except the directories of the modules that are not needed, and re-include the POMs in those
+ * directories. A module is needed if it is under test, if a needed module depends on it or inherits from it, or if it
+ * aggregates a needed module.
+ */
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+final class SparseCheckout {
+
+    private static final Logger LOGGER = Logger.getLogger(SparseCheckout.class.getName());
+
+    /** The patterns for the first phase of a sparse checkout, in which only the POMs are checked out. */
+    static final List<String> POMS_ONLY = List.of("/*", "!/*/", "/**/pom.xml", "/.mvn/");
+
+    private SparseCheckout() {}
+
+    /**
+     * Compute the patterns for the given checkout, in which at least the POMs must already be checked out.
+     *
+     * @param modules the modules under test, as given to {@code -pl}: a path relative to the root of the repository, or
+     *     {@code :artifactId}
+     * @return the patterns in the non-cone format of {@code git sparse-checkout}, or {@code null} if a module could
+     *     not be found, in which case the full repository should be checked out
+     */
+    @CheckForNull
+    static List<String> getPatterns(@NonNull File checkoutDirectory, @NonNull Collection<String> modules) {
+        Map<String, Model> models = new HashMap<>();
+        Map<String, String> pathsByArtifactId = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>(List.of(""));
+        while (!queue.isEmpty()) {
+            String path = queue.remove();
+            if (models.containsKey(path)) {
+                continue;
+            }
+            Model model = read(new File(new File(checkoutDirectory, path), "pom.xml"));
+            if (model == null) {
+                continue;
+            }
+            models.put(path, model);
+            pathsByArtifactId.put(model.getArtifactId(), path);
+            // Modules from profiles too, since the POMs of modules that might be activated must be present
+            List<String> children = new ArrayList<>(model.getModules());
+            for (Profile profile : model.getProfiles()) {
+                children.addAll(profile.getModules());
+            }
+            for (String child : children) {
+                queue.add(normalize(path, child));
+            }
+        }
+
+        Set<String> needed = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for (String module : modules) {
+            String path = module.startsWith(":") ? pathsByArtifactId.get(module.substring(1)) : normalize("", module);
+            if (path == null || !models.containsKey(path)) {
+                LOGGER.log(Level.WARNING, "Module {0} not found in {1}", new Object[] {module, checkoutDirectory});
+                return null;
+            }
+            pending.add(path);
+        }
+        while (!pending.isEmpty()) {
+            String path = pending.remove();
+            if (!needed.add(path)) {
+                continue;
+            }
+            Model model = models.get(path);
+            List<String> artifactIds = new ArrayList<>();
+            if (model.getParent() != null) {
+                artifactIds.add(model.getParent().getArtifactId());
+            }
+            List<Dependency> dependencies = new ArrayList<>(model.getDependencies());
+            for (Profile profile : model.getProfiles()) {
+                dependencies.addAll(profile.getDependencies());
+            }
+            for (Dependency dependency : dependencies) {
+                artifactIds.add(dependency.getArtifactId());
+            }
+            // Group IDs are often given as ${project.groupId}, and artifact IDs are unique in practice
+            for (String artifactId : artifactIds) {
+                String dependencyPath = pathsByArtifactId.get(artifactId);
+                if (dependencyPath != null) {
+                    pending.add(dependencyPath);
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>(List.of("/*"));
+        for (String path : new TreeSet<>(models.keySet())) {
+            if (path.isEmpty() || isNeeded(path, needed) || isExcluded(path, models.keySet(), needed)) {
+                continue;
+            }
+            result.add("!/" + path + "/");
+            result.add("/" + path + "/**/pom.xml");
+        }
+        return result;
+    }
+
+    /** Whether the module at the given path or any module below it is needed. */
+    private static boolean isNeeded(String path, Set<String> needed) {
+        for (String neededPath : needed) {
+            if (neededPath.equals(path) || neededPath.startsWith(path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether the module at the given path is below a module that is already excluded as a whole. */
+    private static boolean isExcluded(String path, Set<String> paths, Set<String> needed) {
+        for (String other : paths) {
+            if (!other.isEmpty() && path.startsWith(other + "/") && !isNeeded(other, needed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Resolve a module reference, which may point to a directory or a POM file, relative to the given path. */
+    private static String normalize(String path, String module) {
+        String result = path.isEmpty() ? module : path + "/" + module;
+        result = result.replace('\\', '/');
+        if (result.endsWith(".xml")) {
+            int index = result.lastIndexOf('/');
+            result = index < 0 ? "" : result.substring(0, index);
+        }
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : result.split("/")) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..")) {
+                segments.pollLast();
+            } else {
+                segments.add(segment);
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    @CheckForNull
+    private static Model read(File pom) {
+        if (!pom.isFile()) {
+            return null;
+        }
+        try (InputStream is = Files.newInputStream(pom.toPath())) {
+            return new MavenXpp3Reader().read(is, false);
+        } catch (XmlPullParserException e) {
+            LOGGER.log(Level.WARNING, "Failed to parse " + pom, e);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
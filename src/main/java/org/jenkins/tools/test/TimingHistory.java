@@ -0,0 +1,182 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * The durations of previous runs, used to balance and order work.
+ *
+ * <p>The history is a text file with a line per plugin and stage, each consisting of the plugin ID, a tab character,
+ * the name of the stage, a tab character, and the duration of the stage in milliseconds. Lines starting with {@code #}
+ * are comments. The duration of a plugin is the sum of the durations of its stages. When the same plugin and stage
+ * appear more than once, the last occurrence wins, so the histories of several nodes can be concatenated.
+ *
+ * <p>Durations recorded during a run are not used for estimates until the history is saved and loaded again. Saving
+ * replaces all the stages of each recorded plugin and keeps the plugins that were not recorded.
+ */
+final class TimingHistory {
+
+    private static final Logger LOGGER = Logger.getLogger(TimingHistory.class.getName());
+
+    /** Durations in milliseconds by plugin ID and stage. */
+    @NonNull
+    private final Map<String, Map<String, Long>> durations;
+
+    /** Durations in milliseconds by plugin ID and stage, recorded during this run. */
+    private final Map<String, Map<String, Long>> recorded = new ConcurrentHashMap<>();
+
+    /**
+     * An empty history, with which every plugin is estimated to take the same time.
+     */
+    TimingHistory() {
+        this(new HashMap<>());
+    }
+
+    private TimingHistory(@NonNull Map<String, Map<String, Long>> durations) {
+        this.durations = durations;
+    }
+
+    /**
+     * Load the history from the given file, which need not exist.
+     */
+    @NonNull
+    static TimingHistory load(@NonNull File file) {
+        return new TimingHistory(read(file));
+    }
+
+    private static Map<String, Map<String, Long>> read(File file) {
+        Map<String, Map<String, Long>> durations = new HashMap<>();
+        if (!file.isFile()) {
+            return durations;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                long millis;
+                try {
+                    millis = fields.length == 3 ? Long.parseLong(fields[2]) : -1;
+                } catch (NumberFormatException e) {
+                    millis = -1;
+                }
+                if (millis < 0) {
+                    LOGGER.log(Level.WARNING, "Ignoring malformed line in {0}: {1}", new Object[] {file, line});
+                    continue;
+                }
+                durations.computeIfAbsent(fields[0], k -> new HashMap<>()).put(fields[1], millis);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read timing history " + file, e);
+        }
+        return durations;
+    }
+
+    /**
+     * Record time spent on the given stage of the given plugin, adding to any time already recorded for it in this run.
+     */
+    void record(@NonNull String pluginId, @NonNull String stage, @NonNull Duration duration) {
+        recorded.computeIfAbsent(pluginId, k -> new ConcurrentHashMap<>()).merge(stage, duration.toMillis(), Long::sum);
+    }
+
+    /**
+     * Write the durations recorded during this run to the given file, merging them with its current contents.
+     */
+    void save(@NonNull File file) {
+        Map<String, Map<String, Long>> result = new TreeMap<>(read(file));
+        result.putAll(recorded);
+        try {
+            Path parent = file.getAbsoluteFile().getParentFile().toPath();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, file.getName(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    writer.write("# plugin\tstage\tmillis");
+                    writer.newLine();
+                    for (Map.Entry<String, Map<String, Long>> plugin : result.entrySet()) {
+                        for (Map.Entry<String, Long> stage : new TreeMap<>(plugin.getValue()).entrySet()) {
+                            writer.write(plugin.getKey() + '\t' + stage.getKey() + '\t' + stage.getValue());
+                            writer.newLine();
+                        }
+                    }
+                }
+                try {
+                    Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write timing history " + file, e);
+        }
+        LOGGER.log(Level.INFO, "Recorded the durations of {0} plugins in {1}", new Object[] {recorded.size(), file});
+    }
+
+    /**
+     * The total duration of the given plugin in the most recent run that recorded it.
+     *
+     * @return the duration, or {@code null} if the plugin has no history
+     */
+    @CheckForNull
+    Duration getDuration(@NonNull String pluginId) {
+        Map<String, Long> stages = durations.get(pluginId);
+        if (stages == null) {
+            return null;
+        }
+        return Duration.ofMillis(
+                stages.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * The estimated duration of each of the given repositories: the sum of the durations of their plugins. Plugins
+     * without history are estimated at the mean duration of the plugins with history, or one second if there is none.
+     */
+    @NonNull
+    Map<String, Duration> estimate(@NonNull Map<String, ? extends Collection<Plugin>> pluginsByRepository) {
+        long known = 0;
+        long total = 0;
+        for (Collection<Plugin> plugins : pluginsByRepository.values()) {
+            for (Plugin plugin : plugins) {
+                Duration duration = getDuration(plugin.getPluginId());
+                if (duration != null) {
+                    known++;
+                    total += duration.toMillis();
+                }
+            }
+        }
+        long fallback = known > 0 ? total / known : 1000;
+        Map<String, Duration> result = new HashMap<>();
+        for (Map.Entry<String, ? extends Collection<Plugin>> entry : pluginsByRepository.entrySet()) {
+            long millis = 0;
+            for (Plugin plugin : entry.getValue()) {
+                Duration duration = getDuration(plugin.getPluginId());
+                millis += duration != null ? duration.toMillis() : fallback;
+            }
+            result.put(entry.getKey(), Duration.ofMillis(millis));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * How the output of Maven builds is written to build logs: optionally compressed with gzip as it is written, and
+ * optionally capped in size, keeping the start and the end of the output of each Maven invocation and dropping the
+ * middle. The end is kept in memory, in a buffer of at most {@link #TAIL_SIZE} bytes, until the invocation finishes.
+ *
+ * <p>Each Maven invocation appends to the build log of a plugin, so a compressed build log consists of one gzip member
+ * per invocation, which {@link #read(File)} (like {@code zcat}) reads as a single stream.
+ */
+public final class BuildLog {
+
+    /** Uncompressed and unlimited. */
+    public static final BuildLog PLAIN = new BuildLog(false, 0);
+
+    /** The suffix of the name of a compressed build log. */
+    public static final String COMPRESSED_SUFFIX = ".gz";
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The most output at the end of each Maven invocation that a capped build log keeps. */
+    static final int TAIL_SIZE = 1024 * 1024;
+
+    private final boolean compressed;
+
+    private final long maxSize;
+
+    /**
+     * @param compressed whether to compress build logs with gzip
+     * @param maxSize the maximum number of bytes of output of each Maven invocation to keep, before compression; 0 for
+     *     no limit
+     */
+    public BuildLog(boolean compressed, long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.compressed = compressed;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Open a build log for appending the output of a Maven invocation. The output is only complete once the stream
+     * has been closed.
+     */
+    @NonNull
+    @SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+    public OutputStream open(@NonNull File file) throws IOException {
+        OutputStream result = new FileOutputStream(file, true);
+        if (compressed) {
+            try {
+                result = new GZIPOutputStream(result, BUFFER_SIZE);
+            } catch (IOException | RuntimeException e) {
+                result.close();
+                throw e;
+            }
+        }
+        if (maxSize > 0) {
+            result = new CappedOutputStream(result, maxSize, (int) Math.min(maxSize / 2, TAIL_SIZE));
+        }
+        return result;
+    }
+
+    /**
+     * Read a build log, decompressing it if it is compressed, whatever its name.
+     */
+    @NonNull
+    @SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+    public static InputStream read(@NonNull File file) throws IOException {
+        InputStream is = new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE);
+        try {
+            is.mark(2);
+            int b1 = is.read();
+            int b2 = is.read();
+            is.reset();
+            if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+                return new GZIPInputStream(is, BUFFER_SIZE);
+            }
+            return is;
+        } catch (IOException | RuntimeException e) {
+            is.close();
+            throw e;
+        }
+    }
+}
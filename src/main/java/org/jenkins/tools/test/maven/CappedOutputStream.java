@@ -0,0 +1,112 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passes on at most a given number of bytes: the head as it is written, and the tail once the stream is closed, with a
+ * marker line in place of what was dropped between them.
+ *
+ * <p>The tail is kept in a ring buffer in memory, so nothing but the capped output is ever written to disk. Its size is
+ * fixed independently of the cap (at most half of it), and the head takes the rest of the cap. The output after the
+ * marker starts at a line boundary where the tail holds one.
+ */
+final class CappedOutputStream extends FilterOutputStream {
+
+    private long head;
+
+    @NonNull
+    private final byte[] tail;
+
+    /** The index in {@link #tail} at which the next byte is written. */
+    private int position;
+
+    /** The number of bytes written after the head, of which the last {@code tail.length} are kept. */
+    private long tailWritten;
+
+    private boolean endsWithNewline = true;
+
+    private boolean closed;
+
+    /**
+     * @param tailSize the number of bytes at the end of the output to keep, which must not exceed {@code maxSize}
+     */
+    CappedOutputStream(@NonNull OutputStream out, long maxSize, int tailSize) {
+        super(out);
+        if (tailSize < 0 || tailSize > maxSize) {
+            throw new IllegalArgumentException("tailSize must be between 0 and " + maxSize + ": " + tailSize);
+        }
+        this.tail = new byte[tailSize];
+        this.head = maxSize - tailSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        if (head > 0) {
+            int n = (int) Math.min(head, len);
+            out.write(b, off, n);
+            endsWithNewline = b[off + n - 1] == '\n';
+            head -= n;
+            off += n;
+            len -= n;
+        }
+        tailWritten += len;
+        if (tail.length == 0) {
+            return;
+        }
+        if (len >= tail.length) {
+            // Only the end of this write is kept
+            System.arraycopy(b, off + len - tail.length, tail, 0, tail.length);
+            position = 0;
+            return;
+        }
+        int n = Math.min(len, tail.length - position);
+        System.arraycopy(b, off, tail, position, n);
+        System.arraycopy(b, off + n, tail, 0, len - n);
+        position = (position + len) % tail.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            int kept = (int) Math.min(tailWritten, tail.length);
+            byte[] ordered = new byte[kept];
+            if (tailWritten < tail.length) {
+                System.arraycopy(tail, 0, ordered, 0, kept);
+            } else {
+                System.arraycopy(tail, position, ordered, 0, tail.length - position);
+                System.arraycopy(tail, 0, ordered, tail.length - position, position);
+            }
+            long dropped = tailWritten - kept;
+            int from = 0;
+            if (dropped > 0) {
+                // Do not start with the end of a line that was partly dropped
+                for (int i = 0; i < kept - 1; i++) {
+                    if (ordered[i] == '\n') {
+                        from = i + 1;
+                        break;
+                    }
+                }
+                dropped += from;
+                String marker = (endsWithNewline ? "" : "\n") + "[... " + dropped
+                        + " bytes of output omitted from the build log ...]\n";
+                out.write(marker.getBytes(StandardCharsets.UTF_8));
+            }
+            out.write(ordered, from, kept - from);
+        } finally {
+            super.close();
+        }
+    }
+}
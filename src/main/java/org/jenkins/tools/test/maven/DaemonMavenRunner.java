@@ -0,0 +1,439 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang.SystemUtils;
+import org.jenkins.tools.test.exception.PomExecutionException;
+
+/**
+ * Runs Maven in a pool of long-lived JVMs, in the style of the Maven Daemon, rather than starting a cold JVM for every
+ * invocation.
+ *
+ * <p>Each JVM runs {@link MavenDaemonWorker} on the classpath of the Maven installation and performs one build at a
+ * time. Build output is copied to standard output and the build log exactly as with {@link ExternalMavenRunner}, and a
+ * non-zero exit status is reported in the same way. Since the JVM is shared between builds, per-project JVM options in
+ * {@code .mvn/jvm.config} are not honored; {@code MAVEN_OPTS} is applied when the JVM is started. A JVM is replaced
+ * after {@link #MAX_BUILDS_PER_WORKER} builds to bound any leaks, and immediately if a build is interrupted or the JVM
+ * exits unexpectedly.
+ */
+public class DaemonMavenRunner implements MavenRunner, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DaemonMavenRunner.class.getName());
+
+    static final int MAX_BUILDS_PER_WORKER = 25;
+
+    private static final String MAVEN_CLI = "org.apache.maven.cli.MavenCli";
+
+    @CheckForNull
+    private final File mavenSettings;
+
+    @NonNull
+    private final List<String> mavenArgs;
+
+    @CheckForNull
+    private final File mavenHome;
+
+    @NonNull
+    private final List<File> classpath;
+
+    @NonNull
+    private final String cliClass;
+
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+
+    private final Semaphore slots;
+
+    private final boolean mirrorOutput;
+
+    @NonNull
+    private final BuildLog buildLog;
+
+    @CheckForNull
+    private Path workerClasses;
+
+    /**
+     * Constructor.
+     *
+     * @param externalMaven Path to Maven. If {@code null}, the Maven installation is located from {@code MAVEN_HOME}
+     *     or {@code PATH}
+     * @param size the maximum number of JVMs to keep alive, which is also the maximum number of concurrent builds
+     */
+    public DaemonMavenRunner(
+            @CheckForNull File externalMaven,
+            @CheckForNull File mavenSettings,
+            @NonNull List<String> mavenArgs,
+            int size) {
+        this(externalMaven, mavenSettings, mavenArgs, size, true, BuildLog.PLAIN);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param externalMaven Path to Maven. If {@code null}, the Maven installation is located from {@code MAVEN_HOME}
+     *     or {@code PATH}
+     * @param size the maximum number of JVMs to keep alive, which is also the maximum number of concurrent builds
+     * @param mirrorOutput whether to copy the output of builds to the console as well as to the build log
+     * @param buildLog how to write the build log
+     */
+    public DaemonMavenRunner(
+            @CheckForNull File externalMaven,
+            @CheckForNull File mavenSettings,
+            @NonNull List<String> mavenArgs,
+            int size,
+            boolean mirrorOutput,
+            @NonNull BuildLog buildLog) {
+        this(mavenSettings, mavenArgs, getMavenHome(externalMaven), null, MAVEN_CLI, size, mirrorOutput, buildLog);
+    }
+
+    DaemonMavenRunner(
+            @CheckForNull File mavenSettings,
+            @NonNull List<String> mavenArgs,
+            @CheckForNull File mavenHome,
+            @CheckForNull List<File> classpath,
+            @NonNull String cliClass,
+            int size,
+            boolean mirrorOutput,
+            @NonNull BuildLog buildLog) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        this.mavenSettings = mavenSettings;
+        this.mavenArgs = mavenArgs;
+        this.mavenHome = mavenHome;
+        this.classpath = classpath != null ? classpath : getMavenClasspath(mavenHome);
+        this.cliClass = cliClass;
+        this.slots = new Semaphore(size);
+        this.mirrorOutput = mirrorOutput;
+        this.buildLog = buildLog;
+    }
+
+    @Override
+    public File getMavenSettings() {
+        return mavenSettings;
+    }
+
+    @Override
+    public List<String> getMavenArgs() {
+        return mavenArgs;
+    }
+
+    @Override
+    public File getMavenHome() {
+        return mavenHome;
+    }
+
+    @Override
+    public void run(
+            Map<String, String> properties, File baseDirectory, String moduleName, File buildLogFile, String... args)
+            throws PomExecutionException {
+        List<String> cmd = ExternalMavenRunner.getArguments(mavenSettings, mavenArgs, properties, moduleName, args);
+        String description = "mvn " + String.join(" ", cmd);
+        if (buildLogFile != null) {
+            LOGGER.log(Level.INFO, "Running {0} in {1} (daemon) >> {2}", new Object[] {
+                description, baseDirectory, buildLogFile
+            });
+        } else {
+            LOGGER.log(Level.INFO, "Running {0} in {1} (daemon)", new Object[] {description, baseDirectory});
+        }
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            throw new PomExecutionException(description + " was interrupted", e);
+        }
+        Worker worker = null;
+        boolean reusable = false;
+        try {
+            worker = idle.poll();
+            if (worker == null || !worker.process.isAlive()) {
+                if (worker != null) {
+                    worker.destroy();
+                }
+                worker = startWorker();
+            }
+            DaemonGobbler gobbler = new DaemonGobbler(worker, buildLogFile, buildLog, mirrorOutput);
+            try {
+                worker.send(baseDirectory, cmd);
+            } catch (IOException e) {
+                throw new PomExecutionException(description + " in " + baseDirectory + " failed to start", e);
+            }
+            gobbler.start();
+            try {
+                gobbler.join();
+            } catch (InterruptedException e) {
+                // e.g., another plugin failed and fail fast is enabled; do not leave the build running in the
+                // background
+                worker.destroy();
+                throw new PomExecutionException(description + " was interrupted", e);
+            }
+            if (gobbler.exitStatus == null) {
+                throw new PomExecutionException(
+                        description + " in " + baseDirectory + " failed: the Maven daemon exited unexpectedly",
+                        gobbler.failure);
+            }
+            reusable = ++worker.builds < MAX_BUILDS_PER_WORKER;
+            if (gobbler.exitStatus != 0) {
+                throw new PomExecutionException(
+                        description + " in " + baseDirectory + " failed with exit status " + gobbler.exitStatus);
+            }
+        } finally {
+            if (worker != null) {
+                if (reusable) {
+                    idle.add(worker);
+                } else {
+                    worker.destroy();
+                }
+            }
+            slots.release();
+        }
+    }
+
+    /**
+     * Stop all idle JVMs. The runner remains usable; new JVMs are started on demand.
+     */
+    @Override
+    public void close() {
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    @SuppressFBWarnings(value = "COMMAND_INJECTION", justification = "intended behavior")
+    private Worker startWorker() {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(getJavaExecutable());
+        String mavenOpts = System.getenv("MAVEN_OPTS");
+        if (mavenOpts != null && !mavenOpts.isBlank()) {
+            cmd.addAll(Arrays.asList(mavenOpts.trim().split("\\s+")));
+        }
+        if (mavenHome != null) {
+            cmd.add("-Dmaven.home=" + mavenHome.getAbsolutePath());
+        }
+        List<String> entries = new ArrayList<>();
+        for (File file : classpath) {
+            entries.add(file.getAbsolutePath());
+        }
+        entries.add(getWorkerClasses().toString());
+        cmd.add("-cp");
+        cmd.add(String.join(File.pathSeparator, entries));
+        cmd.add(MavenDaemonWorker.class.getName());
+        String token = "[PCT-" + UUID.randomUUID() + "] exit status: ";
+        cmd.add(token);
+        cmd.add(cliClass);
+        LOGGER.log(Level.FINE, "Starting Maven daemon: {0}", String.join(" ", cmd));
+        try {
+            Process process = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+            return new Worker(process, token);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copy the worker class to a directory of its own, so that the daemon does not need the PCT (and its possibly
+     * conflicting dependencies) on its classpath.
+     */
+    private synchronized Path getWorkerClasses() {
+        if (workerClasses == null) {
+            String resource = MavenDaemonWorker.class.getName().replace('.', '/') + ".class";
+            try (InputStream is = MavenDaemonWorker.class.getClassLoader().getResourceAsStream(resource)) {
+                if (is == null) {
+                    throw new IllegalStateException("Could not find " + resource);
+                }
+                Path dir = Files.createTempDirectory("pct-maven-daemon");
+                dir.toFile().deleteOnExit();
+                Path file = dir;
+                for (String segment : resource.split("/")) {
+                    file = file.resolve(segment);
+                    file.toFile().deleteOnExit();
+                }
+                Files.createDirectories(file.getParent());
+                Files.copy(is, file);
+                workerClasses = dir;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return workerClasses;
+    }
+
+    private static String getJavaExecutable() {
+        String javaHome = System.getenv("JAVA_HOME");
+        if (javaHome == null || javaHome.isBlank()) {
+            javaHome = System.getProperty("java.home");
+        }
+        return new File(new File(javaHome, "bin"), SystemUtils.IS_OS_WINDOWS ? "java.exe" : "java").getAbsolutePath();
+    }
+
+    /**
+     * Locate the Maven installation: the grandparent of the Maven executable, {@code MAVEN_HOME}, or the installation
+     * containing {@code mvn} on {@code PATH}.
+     */
+    @CheckForNull
+    public static File getMavenHome(@CheckForNull File externalMaven) {
+        try {
+            if (externalMaven != null) {
+                return externalMaven.getCanonicalFile().getParentFile().getParentFile();
+            }
+            String mavenHome = System.getenv("MAVEN_HOME");
+            if (mavenHome != null && !mavenHome.isBlank()) {
+                return new File(mavenHome);
+            }
+            String path = System.getenv("PATH");
+            if (path != null) {
+                for (String dir : path.split(File.pathSeparator)) {
+                    File mvn = new File(dir, SystemUtils.IS_OS_WINDOWS ? "mvn.cmd" : "mvn");
+                    if (mvn.isFile()) {
+                        return mvn.getCanonicalFile().getParentFile().getParentFile();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return null;
+    }
+
+    private static List<File> getMavenClasspath(@CheckForNull File mavenHome) {
+        if (mavenHome == null) {
+            throw new IllegalArgumentException("Could not locate a Maven installation; specify one with --mvn");
+        }
+        List<File> result = new ArrayList<>();
+        for (String dir : List.of("boot", "lib", "lib/ext")) {
+            File[] jars = new File(mavenHome, dir).listFiles((d, name) -> name.endsWith(".jar"));
+            if (jars != null) {
+                Arrays.sort(jars);
+                result.addAll(List.of(jars));
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException(mavenHome + " does not look like a Maven installation");
+        }
+        // The logging configuration, so that the output is formatted as with the launcher script
+        result.add(new File(mavenHome, "conf/logging"));
+        return result;
+    }
+
+    private static class Worker {
+
+        @NonNull
+        private final Process process;
+
+        @NonNull
+        private final String token;
+
+        @NonNull
+        private final DataOutputStream requests;
+
+        @NonNull
+        private final BufferedReader output;
+
+        private int builds;
+
+        Worker(@NonNull Process process, @NonNull String token) {
+            this.process = process;
+            this.token = token;
+            this.requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.output = new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.defaultCharset()));
+        }
+
+        void send(File baseDirectory, List<String> args) throws IOException {
+            requests.writeUTF(baseDirectory.getAbsolutePath());
+            requests.writeInt(args.size());
+            for (String arg : args) {
+                requests.writeUTF(arg);
+            }
+            requests.flush();
+        }
+
+        void destroy() {
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+        }
+    }
+
+    private static class DaemonGobbler extends Thread {
+
+        @NonNull
+        private final Worker worker;
+
+        @CheckForNull
+        private final File buildLogFile;
+
+        @NonNull
+        private final BuildLog buildLog;
+
+        private final boolean mirrorOutput;
+
+        @CheckForNull
+        private volatile Integer exitStatus;
+
+        @CheckForNull
+        private volatile IOException failure;
+
+        DaemonGobbler(
+                @NonNull Worker worker,
+                @CheckForNull File buildLogFile,
+                @NonNull BuildLog buildLog,
+                boolean mirrorOutput) {
+            this.worker = worker;
+            this.buildLogFile = buildLogFile;
+            this.buildLog = buildLog;
+            this.mirrorOutput = mirrorOutput;
+        }
+
+        @Override
+        public void run() {
+            try (OutputStream os =
+                            buildLogFile == null ? OutputStream.nullOutputStream() : buildLog.open(buildLogFile);
+                    PrintWriter w = new PrintWriter(new OutputStreamWriter(os, Charset.defaultCharset()))) {
+                String line;
+                while ((line = worker.output.readLine()) != null) {
+                    int index = line.indexOf(worker.token);
+                    if (index >= 0) {
+                        if (index > 0) {
+                            // The build output did not end with a newline
+                            if (mirrorOutput) {
+                                System.out.println(line.substring(0, index));
+                            }
+                            w.println(line.substring(0, index));
+                        }
+                        exitStatus = Integer.valueOf(line.substring(index + worker.token.length()));
+                        return;
+                    }
+                    if (mirrorOutput) {
+                        System.out.println(line);
+                    }
+                    w.println(line);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+}
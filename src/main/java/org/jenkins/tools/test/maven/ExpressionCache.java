@@ -0,0 +1,199 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.exception.PomExecutionException;
+
+/**
+ * A cache of the results of evaluating Maven expressions, keyed by clone directory, module, and expression.
+ *
+ * <p>Each entry records a fingerprint of the POM files that can influence the result: the POM of the root project,
+ * the POMs of any intermediate directories between the root project and the module, the POM of the module itself, the
+ * parent POMs found through {@code relativePath} (even outside the clone), and the Maven configuration in {@code
+ * .mvn}. An entry whose fingerprint no longer matches is treated as absent, so a fresh clone or an edited POM is never
+ * answered from stale data. In addition, {@link org.jenkins.tools.test.model.MavenPom} explicitly {@link #invalidate
+ * invalidates} entries when a hook rewrites a POM.
+ *
+ * <p>Parent POMs resolved from a Maven repository are not fingerprinted, as they are immutable once released.
+ */
+public final class ExpressionCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ExpressionCache.class.getName());
+
+    private static final ExpressionCache INSTANCE = new ExpressionCache();
+
+    /**
+     * Computes a value on a cache miss.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws PomExecutionException;
+    }
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    ExpressionCache() {}
+
+    /**
+     * The cache shared by all {@link ExpressionEvaluator}s in this JVM.
+     */
+    @NonNull
+    public static ExpressionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the cached value for the given expression, or compute it with {@code loader} if there is no valid entry.
+     * Concurrent misses for the same key may compute the value more than once; the last one wins.
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public <T> T get(
+            @NonNull File pluginPath, @CheckForNull String module, @NonNull String expression, Loader<T> loader)
+            throws PomExecutionException {
+        Key key = new Key(canonicalize(pluginPath), module, expression);
+        byte[] fingerprint = fingerprint(key.pluginPath, module);
+        Entry entry = entries.get(key);
+        if (entry != null && Arrays.equals(entry.fingerprint, fingerprint)) {
+            LOGGER.log(Level.FINE, "Using cached value of {0} for {1}", new Object[] {expression, key.describe()});
+            return (T) entry.value;
+        }
+        T value = loader.load();
+        entries.put(key, new Entry(fingerprint, value));
+        return value;
+    }
+
+    /**
+     * Invalidate all entries that could be affected by a change to a POM in the given directory, i.e. entries for that
+     * directory itself or for any project that contains it.
+     */
+    public void invalidate(@NonNull File directory) {
+        Path changed = canonicalize(directory);
+        entries.keySet().removeIf(key -> key.resolve().startsWith(changed) || changed.startsWith(key.pluginPath));
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static byte[] fingerprint(Path pluginPath, @CheckForNull String module) {
+        List<Path> files = new ArrayList<>();
+        files.add(pluginPath.resolve(".mvn").resolve("maven.config"));
+        files.add(pluginPath.resolve(".mvn").resolve("extensions.xml"));
+        files.add(pluginPath.resolve("pom.xml"));
+        Path current = pluginPath;
+        if (module != null && !module.isBlank()) {
+            for (Path segment : pluginPath.getFileSystem().getPath(module)) {
+                current = current.resolve(segment);
+                files.add(current.resolve("pom.xml"));
+            }
+        }
+        for (File parent : InProcessExpressionResolver.findLocalParents(
+                current.resolve("pom.xml").toFile())) {
+            files.add(parent.toPath().normalize());
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required by the Java platform", e);
+        }
+        for (Path file : files) {
+            digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+            if (Files.isRegularFile(file)) {
+                try {
+                    digest.update(Files.readAllBytes(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                digest.update((byte) 0);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static Path canonicalize(File file) {
+        try {
+            return file.getCanonicalFile().toPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Key {
+
+        @NonNull
+        private final Path pluginPath;
+
+        @CheckForNull
+        private final String module;
+
+        @NonNull
+        private final String expression;
+
+        Key(@NonNull Path pluginPath, @CheckForNull String module, @NonNull String expression) {
+            this.pluginPath = pluginPath;
+            this.module = module == null || module.isBlank() ? null : module;
+            this.expression = expression;
+        }
+
+        Path resolve() {
+            return module == null ? pluginPath : pluginPath.resolve(module).normalize();
+        }
+
+        String describe() {
+            return module == null ? pluginPath.toString() : pluginPath + " (module " + module + ")";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return pluginPath.equals(key.pluginPath)
+                    && Objects.equals(module, key.module)
+                    && expression.equals(key.expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pluginPath, module, expression);
+        }
+    }
+
+    private static final class Entry {
+
+        private final byte[] fingerprint;
+
+        private final Object value;
+
+        Entry(byte[] fingerprint, Object value) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+        }
+    }
+}
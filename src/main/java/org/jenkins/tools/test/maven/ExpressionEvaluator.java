@@ -4,21 +4,39 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang.StringUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.jenkins.tools.test.exception.PomExecutionException;
 
 /**
  * A high-level wrapper over {@link MavenRunner} that allows for the evaluation of arbitrary expressions.
+ *
+ * <p>Simple expressions are first answered in-process by {@link InProcessExpressionResolver}, which reads the POM files
+ * directly. Failing that, expressions are answered from the effective POM, which is computed by a single Maven
+ * invocation the first time it is needed and then reused for all further expressions. Properties that are also
+ * defined as user properties are answered from those instead, since the effective POM does not reflect them. Only
+ * expressions that cannot be answered from the effective POM (e.g., anything other than a handful of {@code project.*}
+ * expressions and properties defined in the POM) are evaluated individually with {@code help:evaluate}. Both the effective POM and individually evaluated
+ * expressions are stored in an {@link ExpressionCache}, so distinct instances for the same checkout share results.
  */
 public class ExpressionEvaluator {
 
+    /** The cache key under which the effective POM is stored. */
+    private static final String EFFECTIVE_POM = "help:effective-pom";
+
     @NonNull
     private final File pluginPath;
 
@@ -28,49 +46,193 @@ public class ExpressionEvaluator {
     @NonNull
     private final MavenRunner runner;
 
+    @NonNull
+    private final ExpressionCache cache;
+
+    /** The local Maven repository in which to look for parent POMs, or {@code null} for the default. */
+    @CheckForNull
+    private final File localRepository;
+
     public ExpressionEvaluator(File pluginPath, String module, MavenRunner runner) {
+        this(pluginPath, module, runner, ExpressionCache.getInstance(), null);
+    }
+
+    ExpressionEvaluator(
+            File pluginPath,
+            String module,
+            MavenRunner runner,
+            ExpressionCache cache,
+            @CheckForNull File localRepository) {
         this.pluginPath = pluginPath;
         this.module = module;
         this.runner = runner;
+        this.cache = cache;
+        this.localRepository = localRepository;
     }
 
     public String evaluateString(String expression) throws PomExecutionException {
-        Path log = pluginPath.toPath().resolve(expression + ".log");
-        runner.run(
-                Map.of("expression", expression, "output", log.toAbsolutePath().toString()),
-                pluginPath,
-                module,
-                null,
-                "-q",
-                "help:evaluate");
-        String result;
-        try {
-            result = Files.readString(log, Charset.defaultCharset()).trim();
-            Files.deleteIfExists(log);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        return evaluateStrings(List.of(expression)).get(expression);
+    }
+
+    public List<String> evaluateList(String expression) throws PomExecutionException {
+        return evaluateLists(List.of(expression)).get(expression);
+    }
+
+    /**
+     * Evaluate several expressions that each produce a single value, running Maven at most once for all of the
+     * expressions that can be answered from the effective POM.
+     *
+     * @return a map from each expression to its value, in the order of {@code expressions}
+     */
+    public Map<String, String> evaluateStrings(Collection<String> expressions) throws PomExecutionException {
+        InProcessExpressionResolver resolver = newResolver();
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String expression : expressions) {
+            List<String> value = resolveWithoutEvaluating(resolver, expression);
+            if (value != null && value.size() == 1) {
+                result.put(expression, value.get(0));
+            } else {
+                result.put(expression, evaluateStringWithMaven(expression));
+            }
         }
         return result;
     }
 
-    public List<String> evaluateList(String expression) throws PomExecutionException {
-        Path log = pluginPath.toPath().resolve(expression + ".log");
-        runner.run(
-                Map.of("expression", expression, "output", log.toAbsolutePath().toString()),
+    /**
+     * Evaluate several expressions that each produce a list of values, running Maven at most once for all of the
+     * expressions that can be answered from the effective POM.
+     *
+     * @return a map from each expression to its values, in the order of {@code expressions}
+     */
+    public Map<String, List<String>> evaluateLists(Collection<String> expressions) throws PomExecutionException {
+        InProcessExpressionResolver resolver = newResolver();
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String expression : expressions) {
+            List<String> value = resolveWithoutEvaluating(resolver, expression);
+            result.put(expression, value != null ? value : evaluateListWithMaven(expression));
+        }
+        return result;
+    }
+
+    private InProcessExpressionResolver newResolver() {
+        // The resolver must see the same settings and arguments as the Maven invocations it replaces
+        return new InProcessExpressionResolver(
                 pluginPath,
                 module,
-                null,
-                "-q",
-                "help:evaluate");
-        List<String> output;
+                localRepository,
+                runner.getMavenSettings(),
+                runner.getMavenArgs(),
+                InProcessExpressionResolver.getDefaultSettings(runner.getMavenHome()));
+    }
+
+    @CheckForNull
+    private List<String> resolveWithoutEvaluating(InProcessExpressionResolver resolver, String expression)
+            throws PomExecutionException {
+        List<String> value = resolver.resolve(expression);
+        if (value == null) {
+            String userProperty = expression.startsWith("project.")
+                    ? null
+                    : resolver.getUserProperties().get(expression);
+            if (userProperty != null) {
+                // User properties override the POM but are not reflected in the properties of the effective POM
+                return userProperty.contains("${") ? null : List.of(userProperty);
+            }
+            value = resolve(getEffectiveModel(), expression);
+        }
+        return value;
+    }
+
+    /**
+     * Answer an expression from the effective POM. Properties are answered as defined by the POMs, so the caller must
+     * first check whether they are overridden by user properties.
+     *
+     * @return the value(s) of the expression, or {@code null} if the expression cannot be answered from the given model
+     */
+    @CheckForNull
+    static List<String> resolve(@NonNull Model model, @NonNull String expression) {
+        switch (expression) {
+            case "project.groupId":
+                return singleton(model.getGroupId());
+            case "project.artifactId":
+                return singleton(model.getArtifactId());
+            case "project.version":
+                return singleton(model.getVersion());
+            case "project.packaging":
+                return singleton(model.getPackaging());
+            case "project.name":
+                return singleton(model.getName());
+            case "project.modules":
+                return List.copyOf(model.getModules());
+            default:
+                break;
+        }
+        Parent parent = model.getParent();
+        if (parent != null) {
+            switch (expression) {
+                case "project.parent.groupId":
+                    return singleton(parent.getGroupId());
+                case "project.parent.artifactId":
+                    return singleton(parent.getArtifactId());
+                case "project.parent.version":
+                    return singleton(parent.getVersion());
+                default:
+                    break;
+            }
+        }
+        if (!expression.startsWith("project.")) {
+            return singleton(model.getProperties().getProperty(expression));
+        }
+        return null;
+    }
+
+    @CheckForNull
+    private static List<String> singleton(@CheckForNull String value) {
+        return value == null ? null : List.of(value);
+    }
+
+    /**
+     * Compute the effective POM with a single invocation of {@code help:effective-pom}.
+     */
+    private Model getEffectiveModel() throws PomExecutionException {
+        return cache.get(pluginPath, module, EFFECTIVE_POM, this::computeEffectiveModel);
+    }
+
+    private Model computeEffectiveModel() throws PomExecutionException {
+        Path output = createTempFile("effective-pom", ".xml");
         try {
-            output = Files.readAllLines(log, Charset.defaultCharset());
-            Files.deleteIfExists(log);
+            List<String> args = new ArrayList<>();
+            args.add("-q");
+            if (module == null || module.isBlank()) {
+                // Only the root project; do not build the effective POM for every module in the reactor
+                args.add("-N");
+            }
+            args.add("help:effective-pom");
+            runner.run(
+                    Map.of("output", output.toAbsolutePath().toString()),
+                    pluginPath,
+                    module,
+                    null,
+                    args.toArray(new String[0]));
+            try (InputStream is = Files.newInputStream(output)) {
+                return new MavenXpp3Reader().read(is);
+            } catch (XmlPullParserException e) {
+                throw new PomExecutionException("Failed to parse effective POM for " + pluginPath, e);
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            deleteTempFile(output);
         }
+    }
+
+    private String evaluateStringWithMaven(String expression) throws PomExecutionException {
+        return String.join(System.lineSeparator(), evaluateWithMaven(expression))
+                .trim();
+    }
+
+    private List<String> evaluateListWithMaven(String expression) throws PomExecutionException {
         List<String> result = new ArrayList<>();
-        for (String line : output) {
+        for (String line : evaluateWithMaven(expression)) {
             if (!StringUtils.startsWith(line.trim(), "<string>")) {
                 continue;
             }
@@ -78,4 +240,46 @@ public class ExpressionEvaluator {
         }
         return result;
     }
+
+    private List<String> evaluateWithMaven(String expression) throws PomExecutionException {
+        return cache.get(pluginPath, module, expression, () -> List.copyOf(computeWithMaven(expression)));
+    }
+
+    private List<String> computeWithMaven(String expression) throws PomExecutionException {
+        Path log = createTempFile("evaluate", ".log");
+        try {
+            runner.run(
+                    Map.of(
+                            "expression",
+                            expression,
+                            "output",
+                            log.toAbsolutePath().toString()),
+                    pluginPath,
+                    module,
+                    null,
+                    "-q",
+                    "help:evaluate");
+            return Files.readAllLines(log, Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteTempFile(log);
+        }
+    }
+
+    private static Path createTempFile(String prefix, String suffix) {
+        try {
+            return Files.createTempFile("pct-" + prefix, suffix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteTempFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
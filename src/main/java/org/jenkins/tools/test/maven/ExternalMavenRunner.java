@@ -2,21 +2,10 @@ package org.jenkins.tools.test.maven;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
-import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.io.Reader;
 import java.io.UncheckedIOException;
-import java.io.Writer;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +28,11 @@ public class ExternalMavenRunner implements MavenRunner {
     @NonNull
     private final List<String> mavenArgs;
 
+    private final boolean mirrorOutput;
+
+    @NonNull
+    private final BuildLog buildLog;
+
     /**
      * Constructor.
      *
@@ -47,9 +41,43 @@ public class ExternalMavenRunner implements MavenRunner {
      */
     public ExternalMavenRunner(
             @CheckForNull File externalMaven, @CheckForNull File mavenSettings, @NonNull List<String> mavenArgs) {
+        this(externalMaven, mavenSettings, mavenArgs, true, BuildLog.PLAIN);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param externalMaven Path to Maven. If {@code null}, a default Maven executable from {@code
+     *     PATH} will be used
+     * @param mirrorOutput whether to copy the output of builds to the console as well as to the build log
+     * @param buildLog how to write the build log
+     */
+    public ExternalMavenRunner(
+            @CheckForNull File externalMaven,
+            @CheckForNull File mavenSettings,
+            @NonNull List<String> mavenArgs,
+            boolean mirrorOutput,
+            @NonNull BuildLog buildLog) {
         this.externalMaven = externalMaven;
         this.mavenSettings = mavenSettings;
         this.mavenArgs = mavenArgs;
+        this.mirrorOutput = mirrorOutput;
+        this.buildLog = buildLog;
+    }
+
+    @Override
+    public File getMavenSettings() {
+        return mavenSettings;
+    }
+
+    @Override
+    public List<String> getMavenArgs() {
+        return mavenArgs;
+    }
+
+    @Override
+    public File getMavenHome() {
+        return DaemonMavenRunner.getMavenHome(externalMaven);
     }
 
     @Override
@@ -63,23 +91,7 @@ public class ExternalMavenRunner implements MavenRunner {
         } else {
             cmd.add(SystemUtils.IS_OS_WINDOWS ? "mvn.cmd" : "mvn");
         }
-        cmd.add("-B"); // --batch-mode
-        cmd.add("-V"); // --show-version
-        cmd.add("-e"); // --errors
-        cmd.add("-ntp"); // --no-transfer-progress
-        if (mavenSettings != null) {
-            cmd.add("-s");
-            cmd.add(mavenSettings.toString());
-        }
-        if (moduleName != null && !moduleName.isBlank()) {
-            cmd.add("-pl");
-            cmd.add(moduleName);
-        }
-        for (Map.Entry<String, String> entry : properties.entrySet()) {
-            cmd.add("-D" + entry);
-        }
-        cmd.addAll(mavenArgs);
-        cmd.addAll(List.of(args));
+        cmd.addAll(getArguments(mavenSettings, mavenArgs, properties, moduleName, args));
         if (buildLogFile != null) {
             LOGGER.log(Level.INFO, "Running {0} in {1} >> {2}", new Object[] {
                 String.join(" ", cmd), baseDirectory, buildLogFile
@@ -96,52 +108,55 @@ public class ExternalMavenRunner implements MavenRunner {
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        MavenGobbler gobbler = new MavenGobbler(p, buildLogFile);
-        gobbler.start();
+        LogPump pump = new LogPump(p.getInputStream(), buildLogFile, buildLog, mirrorOutput ? System.out : null);
+        pump.start();
         int exitStatus;
         try {
             exitStatus = p.waitFor();
-            gobbler.join();
+            pump.join();
         } catch (InterruptedException e) {
+            // e.g., another plugin failed and fail fast is enabled; do not leave the build running in the background
+            p.descendants().forEach(ProcessHandle::destroy);
+            p.destroy();
             throw new PomExecutionException(String.join(" ", cmd) + " was interrupted", e);
         }
+        if (pump.getFailure() != null) {
+            LOGGER.log(Level.WARNING, "Failed to copy the output of " + String.join(" ", cmd), pump.getFailure());
+        }
         if (exitStatus != 0) {
             throw new PomExecutionException(
                     String.join(" ", cmd) + " in " + baseDirectory + " failed with exit status " + exitStatus);
         }
     }
 
-    private static class MavenGobbler extends Thread {
-
-        @NonNull
-        private final Process p;
-
-        @CheckForNull
-        private final File buildLogFile;
-
-        public MavenGobbler(@NonNull Process p, @Nullable File buildLogFile) {
-            this.p = p;
-            this.buildLogFile = buildLogFile;
+    /**
+     * The arguments to pass to Maven (excluding the executable itself), shared by all {@link MavenRunner}
+     * implementations so that they behave identically.
+     */
+    static List<String> getArguments(
+            @CheckForNull File mavenSettings,
+            @NonNull List<String> mavenArgs,
+            Map<String, String> properties,
+            @CheckForNull String moduleName,
+            String... args) {
+        List<String> result = new ArrayList<>();
+        result.add("-B"); // --batch-mode
+        result.add("-V"); // --show-version
+        result.add("-e"); // --errors
+        result.add("-ntp"); // --no-transfer-progress
+        if (mavenSettings != null) {
+            result.add("-s");
+            result.add(mavenSettings.toString());
         }
-
-        @Override
-        public void run() {
-            try (InputStream is = p.getInputStream();
-                    Reader isr = new InputStreamReader(is, Charset.defaultCharset());
-                    BufferedReader r = new BufferedReader(isr);
-                    OutputStream os = buildLogFile == null
-                            ? OutputStream.nullOutputStream()
-                            : new FileOutputStream(buildLogFile, true);
-                    Writer osw = new OutputStreamWriter(os, Charset.defaultCharset());
-                    PrintWriter w = new PrintWriter(osw)) {
-                String line;
-                while ((line = r.readLine()) != null) {
-                    System.out.println(line);
-                    w.println(line);
-                }
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
+        if (moduleName != null && !moduleName.isBlank()) {
+            result.add("-pl");
+            result.add(moduleName);
+        }
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            result.add("-D" + entry);
         }
+        result.addAll(mavenArgs);
+        result.addAll(List.of(args));
+        return result;
     }
 }
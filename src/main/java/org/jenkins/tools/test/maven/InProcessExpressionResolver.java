@@ -0,0 +1,558 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.dom4j.Element;
+import org.dom4j.io.SAXReader;
+
+/**
+ * Answers simple expressions by reading POM files directly rather than by forking Maven.
+ *
+ * <p>The resolver reads the POM of the project, walks its parent chain (first via {@code relativePath}, then via the
+ * local Maven repository), applies inheritance for {@code groupId} and {@code version}, and interpolates properties
+ * in the context of the project, as Maven does. User properties defined in {@code .mvn/maven.config} or by {@code -D}
+ * in the Maven arguments take precedence over properties defined in the POMs, and {@code maven.repo.local} among them
+ * locates the local repository.
+ *
+ * <p>The resolver only answers when it is confident that the answer matches what Maven would compute. It declines
+ * (returns {@code null}) when a parent cannot be found locally, when the expression or any property it references is
+ * defined in a profile (which might be activated), when it references anything other than POM properties and a few
+ * {@code project.*} values, or when interpolation does not terminate. It also declines every expression when Maven is
+ * run with an explicit settings file, when the user or global settings define profiles (which may define properties)
+ * or a local repository that cannot be located, or when the Maven arguments or {@code .mvn/maven.config} contain
+ * options other than {@code -D}, {@code -P}, and a few that only affect output. Activating a profile with {@code -P}
+ * is harmless, since every property defined by a profile of the POMs is already treated as unknown. The caller is then
+ * expected to fall back to Maven.
+ */
+class InProcessExpressionResolver {
+
+    private static final Logger LOGGER = Logger.getLogger(InProcessExpressionResolver.class.getName());
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}]+)}");
+
+    /** Options that do not affect the model, or whose effect on the model is already accounted for. */
+    private static final Set<String> SUPPORTED_OPTIONS = Set.of(
+            "-B",
+            "--batch-mode",
+            "-e",
+            "--errors",
+            "-ntp",
+            "--no-transfer-progress",
+            "-U",
+            "--update-snapshots",
+            "-V",
+            "--show-version");
+
+    /** Options that activate or deactivate profiles. */
+    private static final Set<String> PROFILE_OPTIONS = Set.of("-P", "--activate-profiles");
+
+    @NonNull
+    private final File projectDir;
+
+    @NonNull
+    private final File localRepository;
+
+    @NonNull
+    private final Map<String, String> userProperties;
+
+    /** Whether Maven is run with settings or arguments whose effect on the model is not known. */
+    private final boolean unsupportedConfiguration;
+
+    /** The project followed by its ancestors, or {@code null} if the chain could not be resolved. */
+    @CheckForNull
+    private List<Model> chain;
+
+    private boolean loaded;
+
+    /** Names of properties (and {@code project.modules}) that might be changed by a profile. */
+    private final Set<String> profileDefined = new HashSet<>();
+
+    /** The merged POM properties, with descendants overriding ancestors. */
+    private final Map<String, String> properties = new HashMap<>();
+
+    InProcessExpressionResolver(File pluginPath, @CheckForNull String module, @CheckForNull File localRepository) {
+        this(pluginPath, module, localRepository, null, List.of(), List.of());
+    }
+
+    /**
+     * @param localRepository the local Maven repository, or {@code null} to locate it as Maven would
+     * @param mavenSettings the settings file with which Maven is run, if any
+     * @param mavenArgs the arguments with which Maven is run
+     * @param defaultSettings the user and global settings files that Maven reads in the absence of {@code
+     *     mavenSettings}, most specific first, whether or not they exist
+     */
+    InProcessExpressionResolver(
+            File pluginPath,
+            @CheckForNull String module,
+            @CheckForNull File localRepository,
+            @CheckForNull File mavenSettings,
+            @NonNull List<String> mavenArgs,
+            @NonNull List<File> defaultSettings) {
+        this.projectDir = module == null || module.isBlank() ? pluginPath : new File(pluginPath, module);
+        this.userProperties = new HashMap<>();
+        List<String> args = new ArrayList<>(readMavenConfig(new File(new File(pluginPath, ".mvn"), "maven.config")));
+        args.addAll(mavenArgs);
+        boolean unsupported = mavenSettings != null || !addUserProperties(userProperties, args);
+        String settingsRepository = null;
+        for (File settings : defaultSettings) {
+            Settings parsed = Settings.read(settings);
+            if (parsed == null) {
+                continue;
+            }
+            if (!parsed.supported) {
+                LOGGER.log(Level.FINE, "{0} may affect the model", settings);
+                unsupported = true;
+            } else if (settingsRepository == null) {
+                settingsRepository = parsed.localRepository;
+            }
+        }
+        this.unsupportedConfiguration = unsupported;
+        if (localRepository != null) {
+            this.localRepository = localRepository;
+        } else if (settingsRepository != null
+                && !userProperties.containsKey("maven.repo.local")
+                && System.getProperty("maven.repo.local") == null) {
+            this.localRepository = new File(settingsRepository);
+        } else {
+            this.localRepository = getDefaultLocalRepository(userProperties);
+        }
+    }
+
+    @NonNull
+    static File getDefaultLocalRepository(Map<String, String> userProperties) {
+        String configured = userProperties.get("maven.repo.local");
+        if (configured == null) {
+            configured = System.getProperty("maven.repo.local");
+        }
+        if (configured != null) {
+            return new File(configured);
+        }
+        return new File(new File(System.getProperty("user.home"), ".m2"), "repository");
+    }
+
+    /**
+     * The settings files that Maven reads when run without {@code -s} or {@code -gs}: the user settings, then the
+     * global settings of the given installation.
+     */
+    @NonNull
+    static List<File> getDefaultSettings(@CheckForNull File mavenHome) {
+        List<File> result = new ArrayList<>();
+        result.add(new File(new File(System.getProperty("user.home"), ".m2"), "settings.xml"));
+        String mavenConf = System.getProperty("maven.conf");
+        if (mavenConf != null) {
+            result.add(new File(mavenConf, "settings.xml"));
+        } else if (mavenHome != null) {
+            result.add(new File(new File(mavenHome, "conf"), "settings.xml"));
+        }
+        return result;
+    }
+
+    /**
+     * The user properties defined in {@code .mvn/maven.config} or by {@code -D} in the Maven arguments, whether or not
+     * this resolver answers expressions.
+     */
+    @NonNull
+    Map<String, String> getUserProperties() {
+        return Collections.unmodifiableMap(userProperties);
+    }
+
+    /**
+     * Resolve an expression.
+     *
+     * @return the value(s) of the expression, or {@code null} if the expression could not be resolved with confidence
+     */
+    @CheckForNull
+    List<String> resolve(@NonNull String expression) {
+        if (unsupportedConfiguration) {
+            return null;
+        }
+        List<Model> models = getChain();
+        if (models == null) {
+            return null;
+        }
+        if (expression.equals("project.modules")) {
+            if (profileDefined.contains(expression)) {
+                return null;
+            }
+            List<String> result = new ArrayList<>();
+            for (String module : models.get(0).getModules()) {
+                String value = interpolate(module, new ArrayDeque<>());
+                if (value == null) {
+                    return null;
+                }
+                result.add(value);
+            }
+            return result;
+        }
+        String value = lookup(expression, new ArrayDeque<>());
+        return value == null ? null : List.of(value);
+    }
+
+    /**
+     * Look up a single value in the context of the project, in the same order as Maven: {@code project.*} values, then
+     * user properties, then POM properties.
+     */
+    @CheckForNull
+    private String lookup(String name, Deque<String> stack) {
+        if (stack.contains(name)) {
+            LOGGER.log(Level.FINE, "Cycle while interpolating {0}: {1}", new Object[] {name, stack});
+            return null;
+        }
+        stack.push(name);
+        try {
+            String raw;
+            if (name.startsWith("project.") || name.startsWith("pom.")) {
+                raw = getProjectValue(name.substring(name.indexOf('.') + 1));
+            } else if (name.equals("basedir")) {
+                raw = projectDir.getAbsolutePath();
+            } else if (userProperties.containsKey(name)) {
+                raw = userProperties.get(name);
+            } else if (profileDefined.contains(name)) {
+                return null;
+            } else {
+                raw = properties.get(name);
+            }
+            return raw == null ? null : interpolate(raw, stack);
+        } finally {
+            stack.pop();
+        }
+    }
+
+    @CheckForNull
+    private String getProjectValue(String name) {
+        Model project = chain.get(0);
+        Parent parent = project.getParent();
+        switch (name) {
+            case "groupId":
+                return project.getGroupId() != null
+                        ? project.getGroupId()
+                        : parent != null ? parent.getGroupId() : null;
+            case "artifactId":
+                return project.getArtifactId();
+            case "version":
+                return project.getVersion() != null
+                        ? project.getVersion()
+                        : parent != null ? parent.getVersion() : null;
+            case "packaging":
+                return project.getPackaging();
+            case "name":
+                return project.getName();
+            case "basedir":
+                return projectDir.getAbsolutePath();
+            case "parent.groupId":
+                return parent != null ? parent.getGroupId() : null;
+            case "parent.artifactId":
+                return parent != null ? parent.getArtifactId() : null;
+            case "parent.version":
+                return parent != null ? parent.getVersion() : null;
+            default:
+                return null;
+        }
+    }
+
+    @CheckForNull
+    private String interpolate(String value, Deque<String> stack) {
+        Matcher matcher = PLACEHOLDER.matcher(value);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String replacement = lookup(matcher.group(1), stack);
+            if (replacement == null) {
+                return null;
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    @CheckForNull
+    private List<Model> getChain() {
+        if (!loaded) {
+            loaded = true;
+            chain = loadChain();
+            if (chain != null) {
+                for (int i = chain.size() - 1; i >= 0; i--) {
+                    Model model = chain.get(i);
+                    for (String name : model.getProperties().stringPropertyNames()) {
+                        properties.put(name, model.getProperties().getProperty(name));
+                    }
+                    for (Profile profile : model.getProfiles()) {
+                        profileDefined.addAll(profile.getProperties().stringPropertyNames());
+                        if (!profile.getModules().isEmpty()) {
+                            profileDefined.add("project.modules");
+                        }
+                    }
+                }
+            }
+        }
+        return chain;
+    }
+
+    @CheckForNull
+    private List<Model> loadChain() {
+        File pom = new File(projectDir, "pom.xml");
+        Model model = read(pom);
+        if (model == null) {
+            return null;
+        }
+        List<Model> result = new ArrayList<>();
+        result.add(model);
+        File dir = projectDir;
+        while (model.getParent() != null) {
+            Parent parent = model.getParent();
+            File parentPom = findLocalParent(dir, parent);
+            if (parentPom == null) {
+                parentPom = findRepositoryParent(parent);
+            }
+            if (parentPom == null) {
+                LOGGER.log(Level.FINE, "Could not find parent {0} of {1}", new Object[] {parent.getId(), pom});
+                return null;
+            }
+            model = read(parentPom);
+            if (model == null) {
+                return null;
+            }
+            result.add(model);
+            pom = parentPom;
+            dir = parentPom.getParentFile();
+        }
+        return result;
+    }
+
+    /**
+     * The POM files of the ancestors of the given POM that are found through {@code relativePath}, nearest first,
+     * stopping at the first ancestor that is not.
+     */
+    @NonNull
+    static List<File> findLocalParents(@NonNull File pom) {
+        List<File> result = new ArrayList<>();
+        Set<Path> seen = new HashSet<>();
+        Model model = read(pom);
+        while (model != null && model.getParent() != null) {
+            File parentPom = findLocalParent(pom.getParentFile(), model.getParent());
+            // A cycle of relativePath parents fails in Maven, but must not loop here
+            if (parentPom == null
+                    || !seen.add(parentPom.toPath().toAbsolutePath().normalize())) {
+                break;
+            }
+            result.add(parentPom);
+            pom = parentPom;
+            model = read(parentPom);
+        }
+        return result;
+    }
+
+    @CheckForNull
+    private static File findLocalParent(File dir, Parent parent) {
+        String relativePath = parent.getRelativePath();
+        if (relativePath == null || relativePath.isEmpty()) {
+            return null;
+        }
+        File candidate = new File(dir, relativePath);
+        if (candidate.isDirectory()) {
+            candidate = new File(candidate, "pom.xml");
+        }
+        if (!candidate.isFile()) {
+            return null;
+        }
+        Model model = read(candidate);
+        if (model == null) {
+            return null;
+        }
+        String groupId = model.getGroupId() != null
+                ? model.getGroupId()
+                : model.getParent() != null ? model.getParent().getGroupId() : null;
+        String version = model.getVersion() != null
+                ? model.getVersion()
+                : model.getParent() != null ? model.getParent().getVersion() : null;
+        if (!parent.getGroupId().equals(groupId) || !parent.getArtifactId().equals(model.getArtifactId())) {
+            return null;
+        }
+        // CI-friendly versions are only known after interpolation, so only compare literal versions
+        if (version != null
+                && !version.contains("${")
+                && !parent.getVersion().contains("${")
+                && !parent.getVersion().equals(version)) {
+            return null;
+        }
+        return candidate;
+    }
+
+    @CheckForNull
+    private File findRepositoryParent(Parent parent) {
+        if (parent.getVersion() == null || parent.getVersion().contains("${")) {
+            return null;
+        }
+        File candidate = new File(
+                localRepository,
+                parent.getGroupId().replace('.', File.separatorChar)
+                        + File.separator
+                        + parent.getArtifactId()
+                        + File.separator
+                        + parent.getVersion()
+                        + File.separator
+                        + parent.getArtifactId()
+                        + "-"
+                        + parent.getVersion()
+                        + ".pom");
+        return candidate.isFile() ? candidate : null;
+    }
+
+    @CheckForNull
+    private static Model read(File pom) {
+        if (!pom.isFile()) {
+            return null;
+        }
+        try (InputStream is = Files.newInputStream(pom.toPath())) {
+            return new MavenXpp3Reader().read(is, false);
+        } catch (XmlPullParserException e) {
+            LOGGER.log(Level.FINE, "Failed to parse " + pom, e);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read the arguments from {@code .mvn/maven.config}.
+     */
+    @NonNull
+    private static List<String> readMavenConfig(File mavenConfig) {
+        List<String> result = new ArrayList<>();
+        if (!mavenConfig.isFile()) {
+            return result;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(mavenConfig.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String line : lines) {
+            for (String token : line.trim().split("\\s+")) {
+                if (!token.isEmpty()) {
+                    result.add(token);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add the user properties defined by the given arguments.
+     *
+     * @return {@code false} if any argument is neither a user property nor a supported option
+     */
+    private static boolean addUserProperties(Map<String, String> userProperties, List<String> args) {
+        boolean supported = true;
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (PROFILE_OPTIONS.contains(arg)) {
+                // The profile list is the next argument
+                i++;
+            } else if (!addUserProperty(userProperties, arg)
+                    && !SUPPORTED_OPTIONS.contains(arg)
+                    && !(arg.startsWith("-P") && arg.length() > 2)
+                    && !arg.startsWith("--activate-profiles=")) {
+                LOGGER.log(Level.FINE, "Maven argument {0} may affect the model", arg);
+                supported = false;
+            }
+        }
+        return supported;
+    }
+
+    /**
+     * Add the user property defined by an argument of the form {@code -Dname=value} or {@code -Dname}.
+     *
+     * @return {@code false} if the argument does not define a user property
+     */
+    private static boolean addUserProperty(Map<String, String> userProperties, String arg) {
+        if (!arg.startsWith("-D") || arg.length() <= 2) {
+            return false;
+        }
+        int index = arg.indexOf('=');
+        if (index < 0) {
+            userProperties.put(arg.substring(2), "true");
+        } else {
+            userProperties.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return true;
+    }
+
+    /** The parts of a settings file that matter to the resolver. */
+    private static final class Settings {
+
+        /** Whether the settings leave the model alone, i.e. define no profiles. */
+        private final boolean supported;
+
+        /** The local repository configured by the settings, if any. */
+        @CheckForNull
+        private final String localRepository;
+
+        private Settings(boolean supported, @CheckForNull String localRepository) {
+            this.supported = supported;
+            this.localRepository = localRepository;
+        }
+
+        /**
+         * Read a settings file.
+         *
+         * @return the settings, or {@code null} if the file does not exist
+         */
+        @CheckForNull
+        static Settings read(File file) {
+            if (!file.isFile()) {
+                return null;
+            }
+            Document doc;
+            try {
+                doc = new SAXReader().read(file);
+            } catch (DocumentException e) {
+                LOGGER.log(Level.FINE, "Failed to parse " + file, e);
+                return new Settings(false, null);
+            }
+            Element root = doc.getRootElement();
+            // Settings can only define properties within profiles, which may be active by default or by activation
+            Element profiles = root.element("profiles");
+            Element activeProfiles = root.element("activeProfiles");
+            boolean supported = (profiles == null || profiles.elements().isEmpty())
+                    && (activeProfiles == null || activeProfiles.elements().isEmpty());
+            String localRepository = root.elementTextTrim("localRepository");
+            if (localRepository != null && localRepository.isEmpty()) {
+                localRepository = null;
+            }
+            if (localRepository != null && localRepository.contains("${")) {
+                // Interpolated against properties and the environment, which are not modeled
+                return new Settings(false, null);
+            }
+            return new Settings(supported, localRepository);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Copies the output of a process to its build log, and optionally to the console, as raw bytes.
+ *
+ * <p>Output is read in chunks of up to {@link #BUFFER_SIZE} bytes, which are appended to the log (through {@link
+ * BuildLog}) as they are, without decoding them or splitting them into lines, so memory use is bounded however much
+ * the process writes. The console
+ * receives whole lines only, in a single write per chunk, so the output of concurrent builds is interleaved by line
+ * rather than by character and the console is locked once per chunk rather than once per line. A line longer than the
+ * buffer is written to the console in pieces.
+ */
+final class LogPump extends Thread {
+
+    static final int BUFFER_SIZE = BuildLog.BUFFER_SIZE;
+
+    @NonNull
+    private final InputStream input;
+
+    @CheckForNull
+    private final File buildLogFile;
+
+    @NonNull
+    private final BuildLog buildLog;
+
+    @CheckForNull
+    private final OutputStream console;
+
+    @CheckForNull
+    private volatile IOException failure;
+
+    /**
+     * @param buildLogFile the file to append the output to, or {@code null} to only copy it to the console
+     * @param console the stream to copy the output to, or {@code null} to only append it to the log
+     */
+    LogPump(
+            @NonNull InputStream input,
+            @CheckForNull File buildLogFile,
+            @NonNull BuildLog buildLog,
+            @CheckForNull OutputStream console) {
+        super("pct-log-pump");
+        this.input = input;
+        this.buildLogFile = buildLogFile;
+        this.buildLog = buildLog;
+        this.console = console;
+    }
+
+    @Override
+    public void run() {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        // The start of the buffer holds the part of a line that has not been copied to the console yet
+        int pending = 0;
+        try (InputStream is = input;
+                OutputStream log = buildLogFile == null ? null : buildLog.open(buildLogFile)) {
+            int n;
+            while ((n = is.read(buffer, pending, buffer.length - pending)) != -1) {
+                if (log != null) {
+                    log.write(buffer, pending, n);
+                }
+                if (console != null) {
+                    int end = pending + n;
+                    int lineEnd = end;
+                    while (lineEnd > pending && buffer[lineEnd - 1] != '\n') {
+                        lineEnd--;
+                    }
+                    if (lineEnd == pending) {
+                        // No newline since the last write; wait for one unless the buffer is full
+                        lineEnd = end == buffer.length ? end : 0;
+                    }
+                    if (lineEnd > 0) {
+                        console.write(buffer, 0, lineEnd);
+                        console.flush();
+                        System.arraycopy(buffer, lineEnd, buffer, 0, end - lineEnd);
+                    }
+                    pending = end - lineEnd;
+                }
+            }
+            if (console != null && pending > 0) {
+                // The output did not end with a newline
+                console.write(buffer, 0, pending);
+                console.flush();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * The failure to read the output or write the log, if any, once the pump has finished.
+     */
+    @CheckForNull
+    IOException getFailure() {
+        return failure;
+    }
+}
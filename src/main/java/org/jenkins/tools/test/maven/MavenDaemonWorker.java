@@ -0,0 +1,89 @@
+package org.jenkins.tools.test.maven;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.Properties;
+
+/**
+ * The main class of a JVM managed by {@link DaemonMavenRunner}.
+ *
+ * <p>Reads build requests from standard input (the working directory followed by the Maven arguments, in the format
+ * of {@link java.io.DataOutputStream}), runs each one through the Maven CLI in this JVM, and writes the build output to
+ * standard output followed by a line consisting of the token given on the command line and the exit status. Exits when
+ * standard input is closed.
+ *
+ * <p>This class runs on the classpath of the Maven installation rather than that of the PCT, so it must not refer to
+ * any other class from the PCT (including nested classes of its own).
+ */
+public final class MavenDaemonWorker {
+
+    private MavenDaemonWorker() {}
+
+    public static void main(String[] args) throws Exception {
+        String token = args[0];
+        Class<?> cliClass = Class.forName(args[1]);
+        Method doMain =
+                cliClass.getMethod("doMain", String[].class, String.class, PrintStream.class, PrintStream.class);
+
+        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), true, Charset.defaultCharset());
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        System.setOut(out);
+        System.setErr(out);
+        // Standard input carries our protocol; builds run in batch mode and must not consume it
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        while (true) {
+            String workingDirectory;
+            try {
+                workingDirectory = in.readUTF();
+            } catch (EOFException e) {
+                return;
+            }
+            String[] mavenArgs = new String[in.readInt()];
+            for (int i = 0; i < mavenArgs.length; i++) {
+                mavenArgs[i] = in.readUTF();
+            }
+
+            // Maven sets user properties as system properties; do not let them leak into the next build
+            Properties systemProperties = (Properties) System.getProperties().clone();
+            int status;
+            try {
+                System.setProperty("user.dir", workingDirectory);
+                System.setProperty("maven.multiModuleProjectDirectory", getProjectRoot(workingDirectory));
+                Object cli = cliClass.getConstructor().newInstance();
+                status = (Integer) doMain.invoke(cli, mavenArgs, workingDirectory, out, out);
+            } catch (InvocationTargetException e) {
+                e.getCause().printStackTrace(out);
+                status = 1;
+            } finally {
+                System.setProperties(systemProperties);
+                Thread.currentThread().setContextClassLoader(contextClassLoader);
+            }
+            out.println(token + status);
+            out.flush();
+        }
+    }
+
+    /**
+     * The closest ancestor containing a {@code .mvn} directory, as computed by the {@code mvn} launcher script.
+     */
+    private static String getProjectRoot(String workingDirectory) {
+        File dir = new File(workingDirectory).getAbsoluteFile();
+        for (File current = dir; current != null; current = current.getParentFile()) {
+            if (new File(current, ".mvn").isDirectory()) {
+                return current.getPath();
+            }
+        }
+        return dir.getPath();
+    }
+}
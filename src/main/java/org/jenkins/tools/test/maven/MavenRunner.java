@@ -1,7 +1,9 @@
 package org.jenkins.tools.test.maven;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.File;
+import java.util.List;
 import java.util.Map;
 import org.jenkins.tools.test.exception.PomExecutionException;
 
@@ -14,4 +16,28 @@ public interface MavenRunner {
             @CheckForNull File buildLogFile,
             String... args)
             throws PomExecutionException;
+
+    /**
+     * The settings file passed to every invocation, if any.
+     */
+    @CheckForNull
+    default File getMavenSettings() {
+        return null;
+    }
+
+    /**
+     * The arguments passed to every invocation.
+     */
+    @NonNull
+    default List<String> getMavenArgs() {
+        return List.of();
+    }
+
+    /**
+     * The Maven installation used by every invocation, if known.
+     */
+    @CheckForNull
+    default File getMavenHome() {
+        return null;
+    }
 }
@@ -0,0 +1,48 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.jenkins.tools.test.model.ConsoleOutput;
+import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+
+/**
+ * Creates the {@link MavenRunner} for a configuration. The runner is shared by everything that uses the same
+ * configuration (e.g., the tester itself and hooks that evaluate expressions), so that resources such as daemon JVMs
+ * are pooled across them.
+ */
+public final class MavenRunnerFactory {
+
+    private static final Map<PluginCompatTesterConfig, MavenRunner> RUNNERS = new WeakHashMap<>();
+
+    private MavenRunnerFactory() {}
+
+    @NonNull
+    public static synchronized MavenRunner getRunner(@NonNull PluginCompatTesterConfig config) {
+        return RUNNERS.computeIfAbsent(config, MavenRunnerFactory::createRunner);
+    }
+
+    private static MavenRunner createRunner(PluginCompatTesterConfig config) {
+        boolean mirrorOutput = config.getConsoleOutput() == ConsoleOutput.FULL;
+        BuildLog buildLog = new BuildLog(config.isCompressBuildLogs(), config.getBuildLogMaxSize());
+        switch (config.getMavenRunner()) {
+            case EXTERNAL:
+                return new ExternalMavenRunner(
+                        config.getExternalMaven(),
+                        config.getMavenSettings(),
+                        config.getMavenArgs(),
+                        mirrorOutput,
+                        buildLog);
+            case DAEMON:
+                return new DaemonMavenRunner(
+                        config.getExternalMaven(),
+                        config.getMavenSettings(),
+                        config.getMavenArgs(),
+                        config.getParallelism(),
+                        mirrorOutput,
+                        buildLog);
+            default:
+                throw new AssertionError("Unknown Maven runner: " + config.getMavenRunner());
+        }
+    }
+}
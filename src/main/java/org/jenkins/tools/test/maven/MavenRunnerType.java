@@ -0,0 +1,13 @@
+package org.jenkins.tools.test.maven;
+
+/**
+ * The available {@link MavenRunner} implementations.
+ */
+public enum MavenRunnerType {
+
+    /** Start a new Maven process for every invocation; see {@link ExternalMavenRunner}. */
+    EXTERNAL,
+
+    /** Reuse a pool of warm Maven JVMs across invocations; see {@link DaemonMavenRunner}. */
+    DAEMON
+}
@@ -0,0 +1,16 @@
+package org.jenkins.tools.test.model;
+
+/**
+ * What the output of Maven builds shows on the console. The full output of each build is always in its build log.
+ */
+public enum ConsoleOutput {
+
+    /** The full output of every build, as it is written. */
+    FULL,
+
+    /** A status line for each plugin as it starts and finishes, with the path to its build log. */
+    STATUS,
+
+    /** Nothing. */
+    NONE
+}
@@ -0,0 +1,22 @@
+package org.jenkins.tools.test.model;
+
+/**
+ * How much of the history of a repository to fetch when cloning it.
+ */
+public enum GitFetchStrategy {
+
+    /** Fetch the commit and its full history, through the Git object cache if there is one. */
+    FULL,
+
+    /**
+     * Fetch only the commit itself ({@code --depth 1}). Multi-module repositories are fetched as with {@link #BLOBLESS}
+     * instead, as the version of their incrementals is computed from the history.
+     */
+    SHALLOW,
+
+    /**
+     * Fetch the commit and its history without file contents ({@code --filter=blob:none}), which are fetched on demand
+     * when checked out.
+     */
+    BLOBLESS
+}
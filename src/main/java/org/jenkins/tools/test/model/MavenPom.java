@@ -56,6 +56,7 @@ import org.dom4j.io.OutputFormat;
 import org.dom4j.io.SAXReader;
 import org.dom4j.io.XMLWriter;
 import org.jenkins.tools.test.exception.PomTransformationException;
+import org.jenkins.tools.test.maven.ExpressionCache;
 
 /**
  * Class encapsulating business around Maven POMs
@@ -359,6 +360,8 @@ public class MavenPom {
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            ExpressionCache.getInstance().invalidate(target.getAbsoluteFile().getParentFile());
         }
     }
 
@@ -29,10 +29,12 @@ package org.jenkins.tools.test.model;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.File;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.jenkins.tools.test.maven.MavenRunnerType;
 
 /**
  * POJO used to configure Plugin Compatibility Tester execution
@@ -83,6 +85,10 @@ public class PluginCompatTesterConfig {
     @NonNull
     private List<String> mavenArgs = List.of();
 
+    // How to run Maven
+    @NonNull
+    private MavenRunnerType mavenRunner = MavenRunnerType.EXTERNAL;
+
     // External hooks jar files path locations
     @NonNull
     private Set<File> externalHooksJars = Set.of();
@@ -95,6 +101,80 @@ public class PluginCompatTesterConfig {
     // rather than continuing to test other plugins.
     private boolean failFast;
 
+    // Number of repositories to test concurrently; plugins from the same repository are always tested serially
+    private int parallelism = 1;
+
+    // Number of repositories that may be cloned ahead of the build stage; 0 clones each repository just before testing
+    private int clonePrefetch;
+
+    // Directory of bare repositories kept across runs, from which checkouts borrow their Git objects
+    @CheckForNull
+    private File gitCacheDir;
+
+    // Cached repositories unused for longer than this are evicted; null for no limit
+    @CheckForNull
+    private Duration gitCacheMaxAge = Duration.ofDays(30);
+
+    // Total size in bytes above which the least recently used cached repositories are evicted; 0 for no limit
+    private long gitCacheMaxSize;
+
+    // How much of the history of each repository to fetch
+    @NonNull
+    private GitFetchStrategy gitFetchStrategy = GitFetchStrategy.FULL;
+
+    // Check out only the modules under test (and the modules they need) of multi-module repositories
+    private boolean sparseCheckout;
+
+    // Directory of plugin metadata indexes kept across runs, so that each WAR's metadata is only extracted once
+    @CheckForNull
+    private File metadataIndexDir;
+
+    // Zero-based index of the shard of repositories to test, out of shardCount
+    private int shardIndex;
+
+    // Number of shards across which the repositories are partitioned
+    private int shardCount = 1;
+
+    // Durations of previous runs, with which to balance the shards
+    @CheckForNull
+    private File timingFile;
+
+    // The order in which repositories are tested
+    @NonNull
+    private SchedulingOrder schedulingOrder = SchedulingOrder.ALPHABETICAL;
+
+    // Directory in which to write the results of the run; null for the working directory
+    @CheckForNull
+    private File reportDir;
+
+    // Report of a previous run, whose passed plugins are not tested again
+    @CheckForNull
+    private File resumeReport;
+
+    // Directory of results kept across runs, keyed by everything that determines the result of a plugin
+    @CheckForNull
+    private File resultCacheDir;
+
+    // Report cached results instead of testing the plugins again
+    private boolean trustCache;
+
+    // A previous megawar of the same core; only the plugins affected by the differences from it are tested
+    @CheckForNull
+    private File baselineWar;
+
+    // What the output of Maven builds shows on the console
+    @NonNull
+    private ConsoleOutput consoleOutput = ConsoleOutput.FULL;
+
+    // Print the build log of each plugin that fails to the console in one block
+    private boolean dumpFailedLogs;
+
+    // Compress build logs with gzip as they are written
+    private boolean compressBuildLogs;
+
+    // The maximum size in bytes of the output of each Maven invocation kept in a build log; 0 for no limit
+    private long buildLogMaxSize;
+
     public PluginCompatTesterConfig(@NonNull File war, @NonNull File workingDir) {
         this.war = war;
         this.workingDir = workingDir;
@@ -207,4 +287,210 @@ public class PluginCompatTesterConfig {
     public void setFailFast(boolean failFast) {
         this.failFast = failFast;
     }
+
+    @NonNull
+    public MavenRunnerType getMavenRunner() {
+        return mavenRunner;
+    }
+
+    public void setMavenRunner(@NonNull MavenRunnerType mavenRunner) {
+        this.mavenRunner = mavenRunner;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getClonePrefetch() {
+        return clonePrefetch;
+    }
+
+    public void setClonePrefetch(int clonePrefetch) {
+        if (clonePrefetch < 0) {
+            throw new IllegalArgumentException("clonePrefetch must not be negative: " + clonePrefetch);
+        }
+        this.clonePrefetch = clonePrefetch;
+    }
+
+    @CheckForNull
+    public File getGitCacheDir() {
+        return gitCacheDir;
+    }
+
+    public void setGitCacheDir(@CheckForNull File gitCacheDir) {
+        this.gitCacheDir = gitCacheDir;
+    }
+
+    @CheckForNull
+    public Duration getGitCacheMaxAge() {
+        return gitCacheMaxAge;
+    }
+
+    public void setGitCacheMaxAge(@CheckForNull Duration gitCacheMaxAge) {
+        this.gitCacheMaxAge = gitCacheMaxAge;
+    }
+
+    public long getGitCacheMaxSize() {
+        return gitCacheMaxSize;
+    }
+
+    public void setGitCacheMaxSize(long gitCacheMaxSize) {
+        if (gitCacheMaxSize < 0) {
+            throw new IllegalArgumentException("gitCacheMaxSize must not be negative: " + gitCacheMaxSize);
+        }
+        this.gitCacheMaxSize = gitCacheMaxSize;
+    }
+
+    @NonNull
+    public GitFetchStrategy getGitFetchStrategy() {
+        return gitFetchStrategy;
+    }
+
+    public void setGitFetchStrategy(@NonNull GitFetchStrategy gitFetchStrategy) {
+        this.gitFetchStrategy = gitFetchStrategy;
+    }
+
+    public boolean isSparseCheckout() {
+        return sparseCheckout;
+    }
+
+    public void setSparseCheckout(boolean sparseCheckout) {
+        this.sparseCheckout = sparseCheckout;
+    }
+
+    @CheckForNull
+    public File getMetadataIndexDir() {
+        return metadataIndexDir;
+    }
+
+    public void setMetadataIndexDir(@CheckForNull File metadataIndexDir) {
+        this.metadataIndexDir = metadataIndexDir;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        if (shardIndex < 0) {
+            throw new IllegalArgumentException("shardIndex must not be negative: " + shardIndex);
+        }
+        this.shardIndex = shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    @CheckForNull
+    public File getTimingFile() {
+        return timingFile;
+    }
+
+    public void setTimingFile(@CheckForNull File timingFile) {
+        this.timingFile = timingFile;
+    }
+
+    @NonNull
+    public SchedulingOrder getSchedulingOrder() {
+        return schedulingOrder;
+    }
+
+    public void setSchedulingOrder(@NonNull SchedulingOrder schedulingOrder) {
+        this.schedulingOrder = schedulingOrder;
+    }
+
+    @CheckForNull
+    public File getReportDir() {
+        return reportDir;
+    }
+
+    public void setReportDir(@CheckForNull File reportDir) {
+        this.reportDir = reportDir;
+    }
+
+    @CheckForNull
+    public File getResumeReport() {
+        return resumeReport;
+    }
+
+    public void setResumeReport(@CheckForNull File resumeReport) {
+        this.resumeReport = resumeReport;
+    }
+
+    @CheckForNull
+    public File getResultCacheDir() {
+        return resultCacheDir;
+    }
+
+    public void setResultCacheDir(@CheckForNull File resultCacheDir) {
+        this.resultCacheDir = resultCacheDir;
+    }
+
+    public boolean isTrustCache() {
+        return trustCache;
+    }
+
+    public void setTrustCache(boolean trustCache) {
+        this.trustCache = trustCache;
+    }
+
+    @CheckForNull
+    public File getBaselineWar() {
+        return baselineWar;
+    }
+
+    public void setBaselineWar(@CheckForNull File baselineWar) {
+        this.baselineWar = baselineWar;
+    }
+
+    @NonNull
+    public ConsoleOutput getConsoleOutput() {
+        return consoleOutput;
+    }
+
+    public void setConsoleOutput(@NonNull ConsoleOutput consoleOutput) {
+        this.consoleOutput = consoleOutput;
+    }
+
+    public boolean isDumpFailedLogs() {
+        return dumpFailedLogs;
+    }
+
+    public void setDumpFailedLogs(boolean dumpFailedLogs) {
+        this.dumpFailedLogs = dumpFailedLogs;
+    }
+
+    public boolean isCompressBuildLogs() {
+        return compressBuildLogs;
+    }
+
+    public void setCompressBuildLogs(boolean compressBuildLogs) {
+        this.compressBuildLogs = compressBuildLogs;
+    }
+
+    public long getBuildLogMaxSize() {
+        return buildLogMaxSize;
+    }
+
+    public void setBuildLogMaxSize(long buildLogMaxSize) {
+        if (buildLogMaxSize < 0) {
+            throw new IllegalArgumentException("buildLogMaxSize must not be negative: " + buildLogMaxSize);
+        }
+        this.buildLogMaxSize = buildLogMaxSize;
+    }
 }
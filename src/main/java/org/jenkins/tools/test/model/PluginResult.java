@@ -0,0 +1,217 @@
+package org.jenkins.tools.test.model;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * The outcome of testing a single plugin.
+ */
+public class PluginResult {
+
+    /**
+     * The stages through which a plugin is tested, in order.
+     */
+    public enum Stage {
+
+        /** Cloning the repository. */
+        CLONE,
+
+        /** Compiling the plugin against its original POM. */
+        COMPILE,
+
+        /** Running the tests of the plugin against the core version under test. */
+        TEST;
+
+        /**
+         * The name of the stage in reports.
+         */
+        @NonNull
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Status {
+        PASSED,
+        FAILED,
+        SKIPPED
+    }
+
+    @NonNull
+    private final Plugin plugin;
+
+    @NonNull
+    private final String coreVersion;
+
+    @NonNull
+    private final Status status;
+
+    @CheckForNull
+    private final Stage stage;
+
+    @NonNull
+    private final Map<Stage, Duration> durations;
+
+    @CheckForNull
+    private final String exception;
+
+    @CheckForNull
+    private final File log;
+
+    private final boolean cached;
+
+    private PluginResult(Builder builder) {
+        this.plugin = Objects.requireNonNull(builder.plugin, "plugin may not be null");
+        this.coreVersion = Objects.requireNonNull(builder.coreVersion, "coreVersion may not be null");
+        this.status = Objects.requireNonNull(builder.status, "status may not be null");
+        this.stage = builder.stage;
+        this.durations = Collections.unmodifiableMap(new LinkedHashMap<>(builder.durations));
+        this.exception = builder.exception;
+        this.log = builder.log;
+        this.cached = builder.cached;
+    }
+
+    /**
+     * The plugin that was tested, including its repository.
+     */
+    @NonNull
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * The core version against which the plugin was tested.
+     */
+    @NonNull
+    public String getCoreVersion() {
+        return coreVersion;
+    }
+
+    @NonNull
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * The last stage that was started; {@code null} if the plugin was skipped before any stage started.
+     */
+    @CheckForNull
+    public Stage getStage() {
+        return stage;
+    }
+
+    /**
+     * The time spent in each stage that was started, in the order the stages were started.
+     */
+    @NonNull
+    public Map<Stage, Duration> getDurations() {
+        return durations;
+    }
+
+    /**
+     * The total time spent in all stages.
+     */
+    @NonNull
+    public Duration getTotalDuration() {
+        return durations.values().stream().reduce(Duration.ZERO, Duration::plus);
+    }
+
+    /**
+     * A summary of the exception that caused the failure; {@code null} unless the plugin failed.
+     */
+    @CheckForNull
+    public String getException() {
+        return exception;
+    }
+
+    /**
+     * The build log of the plugin; {@code null} if no Maven build was started.
+     */
+    @CheckForNull
+    public File getLog() {
+        return log;
+    }
+
+    /**
+     * Whether the result was taken from the result cache rather than from testing the plugin in this run.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    public static final class Builder {
+        private Plugin plugin;
+        private String coreVersion;
+        private Status status;
+        private Stage stage;
+        private final Map<Stage, Duration> durations = new LinkedHashMap<>();
+        private String exception;
+        private File log;
+        private boolean cached;
+
+        public Builder() {}
+
+        public Builder withPlugin(Plugin plugin) {
+            this.plugin = plugin;
+            return this;
+        }
+
+        public Builder withCoreVersion(String coreVersion) {
+            this.coreVersion = coreVersion;
+            return this;
+        }
+
+        public Builder withStatus(Status status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder withStage(Stage stage) {
+            this.stage = stage;
+            return this;
+        }
+
+        /**
+         * Add the given duration to the time spent in the given stage.
+         */
+        public Builder withDuration(Stage stage, Duration duration) {
+            this.durations.merge(stage, duration, Duration::plus);
+            return this;
+        }
+
+        /**
+         * Convenience method that summarizes the given exception as its class name and message.
+         */
+        public Builder withException(Throwable t) {
+            this.exception = t.toString();
+            return this;
+        }
+
+        public Builder withException(String exception) {
+            this.exception = exception;
+            return this;
+        }
+
+        public Builder withLog(File log) {
+            this.log = log;
+            return this;
+        }
+
+        public Builder withCached(boolean cached) {
+            this.cached = cached;
+            return this;
+        }
+
+        public PluginResult build() {
+            return new PluginResult(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.jenkins.tools.test.model;
+
+/**
+ * The order in which repositories are tested.
+ */
+public enum SchedulingOrder {
+
+    /** By Git URL. */
+    ALPHABETICAL,
+
+    /**
+     * By estimated duration from the timing history, longest first, so that the slowest repositories do not start last
+     * and prolong the run.
+     */
+    LONGEST_FIRST
+}
@@ -5,6 +5,8 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
@@ -38,6 +40,22 @@ public class PluginCompatTesterHooks {
         hooksByStage.put(Stage.EXECUTION, serviceHelper.loadServices(PluginCompatTesterHookBeforeExecution.class));
     }
 
+    /**
+     * The class names of the hooks that are loaded and not excluded, whether or not they apply to any plugin.
+     */
+    @NonNull
+    public SortedSet<String> getActiveHooks() {
+        SortedSet<String> result = new TreeSet<>();
+        for (List<? extends PluginCompatTesterHook<? extends StageContext>> hooks : hooksByStage.values()) {
+            for (PluginCompatTesterHook<? extends StageContext> hook : hooks) {
+                if (!excludeHooks.contains(hook.getClass().getName())) {
+                    result.add(hook.getClass().getName());
+                }
+            }
+        }
+        return result;
+    }
+
     public void runBeforeCheckout(@NonNull BeforeCheckoutContext context) throws PluginCompatibilityTesterException {
         runHooks(context);
     }
@@ -0,0 +1,237 @@
+package org.jenkins.tools.test.model.plugin_metadata;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The dependencies between a set of plugins, such as those bundled in a WAR.
+ *
+ * <p>Plugins are identified by their index in the sorted array of plugin IDs, and the edges are held in primitive
+ * arrays in compressed sparse row form: the dependencies of plugin {@code i} are {@code
+ * dependencies[dependencyOffsets[i]]} to {@code dependencies[dependencyOffsets[i + 1] - 1]}, and likewise for the
+ * dependents. A graph of a few thousand plugins thus takes a few tens of kilobytes, and traversals visit plugins with a
+ * {@link BitSet} rather than sets of strings. Dependencies on plugins outside the set are ignored.
+ */
+public final class DependencyGraph {
+
+    /** The plugin IDs, sorted. */
+    @NonNull
+    private final String[] pluginIds;
+
+    private final int[] dependencyOffsets;
+
+    private final int[] dependencies;
+
+    private final int[] dependentOffsets;
+
+    private final int[] dependents;
+
+    private DependencyGraph(
+            String[] pluginIds, int[] dependencyOffsets, int[] dependencies, int[] dependentOffsets, int[] dependents) {
+        this.pluginIds = pluginIds;
+        this.dependencyOffsets = dependencyOffsets;
+        this.dependencies = dependencies;
+        this.dependentOffsets = dependentOffsets;
+        this.dependents = dependents;
+    }
+
+    /**
+     * Build the graph of the given plugins from their {@link Plugin#getDependencies() dependencies}.
+     */
+    @NonNull
+    public static DependencyGraph of(@NonNull Collection<Plugin> plugins) {
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        for (Plugin plugin : plugins) {
+            dependencies.put(plugin.getPluginId(), plugin.getDependencies());
+        }
+        return of(dependencies);
+    }
+
+    /**
+     * Build the graph of the given plugins.
+     *
+     * @param pluginDependencies the IDs of the plugins each plugin depends on, by plugin ID
+     */
+    @NonNull
+    public static DependencyGraph of(@NonNull Map<String, ? extends Collection<String>> pluginDependencies) {
+        String[] pluginIds = pluginDependencies.keySet().stream().sorted().toArray(String[]::new);
+        int n = pluginIds.length;
+        int[][] adjacency = new int[n][];
+        int[] dependentCounts = new int[n];
+        int edges = 0;
+        for (Map.Entry<String, ? extends Collection<String>> entry : pluginDependencies.entrySet()) {
+            int from = Arrays.binarySearch(pluginIds, entry.getKey());
+            int[] targets = entry.getValue().stream()
+                    .mapToInt(dependency -> Arrays.binarySearch(pluginIds, dependency))
+                    .filter(to -> to >= 0 && to != from)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            adjacency[from] = targets;
+            for (int to : targets) {
+                dependentCounts[to]++;
+            }
+            edges += targets.length;
+        }
+
+        int[] dependencyOffsets = new int[n + 1];
+        int[] dependencies = new int[edges];
+        int[] dependentOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int[] targets = adjacency[i] != null ? adjacency[i] : new int[0];
+            System.arraycopy(targets, 0, dependencies, dependencyOffsets[i], targets.length);
+            dependencyOffsets[i + 1] = dependencyOffsets[i] + targets.length;
+            dependentOffsets[i + 1] = dependentOffsets[i] + dependentCounts[i];
+        }
+        // Filled in order of the dependent, so each plugin's dependents are sorted
+        int[] dependents = new int[edges];
+        int[] next = Arrays.copyOf(dependentOffsets, n);
+        for (int from = 0; from < n; from++) {
+            for (int e = dependencyOffsets[from]; e < dependencyOffsets[from + 1]; e++) {
+                dependents[next[dependencies[e]]++] = from;
+            }
+        }
+        return new DependencyGraph(pluginIds, dependencyOffsets, dependencies, dependentOffsets, dependents);
+    }
+
+    /**
+     * The number of plugins in the graph.
+     */
+    public int size() {
+        return pluginIds.length;
+    }
+
+    /**
+     * Whether the given plugin is in the graph.
+     */
+    public boolean contains(@NonNull String pluginId) {
+        return Arrays.binarySearch(pluginIds, pluginId) >= 0;
+    }
+
+    /**
+     * The plugins in the graph that the given plugin depends on directly.
+     */
+    @NonNull
+    public Set<String> getDependencies(@NonNull String pluginId) {
+        return toSet(neighbors(indexOf(pluginId), dependencyOffsets, dependencies));
+    }
+
+    /**
+     * The plugins in the graph that depend directly on the given plugin.
+     */
+    @NonNull
+    public Set<String> getDependents(@NonNull String pluginId) {
+        return toSet(neighbors(indexOf(pluginId), dependentOffsets, dependents));
+    }
+
+    /**
+     * The given plugins and every plugin in the graph that they depend on, directly or transitively. Plugins that are
+     * not in the graph are ignored.
+     */
+    @NonNull
+    public Set<String> getTransitiveDependencies(@NonNull Collection<String> pluginIds) {
+        return toSet(closure(pluginIds, dependencyOffsets, dependencies));
+    }
+
+    /**
+     * The given plugins and every plugin in the graph that depends on them, directly or transitively. Plugins that are
+     * not in the graph are ignored.
+     */
+    @NonNull
+    public Set<String> getTransitiveDependents(@NonNull Collection<String> pluginIds) {
+        return toSet(closure(pluginIds, dependentOffsets, dependents));
+    }
+
+    /**
+     * The plugins in the graph ordered so that every plugin comes after the plugins it depends on. Plugins that are
+     * otherwise unordered are in order of plugin ID, and the plugins of a dependency cycle are placed after all the
+     * others, in order of plugin ID.
+     */
+    @NonNull
+    public List<String> getTopologicalOrder() {
+        int n = pluginIds.length;
+        int[] remaining = new int[n];
+        for (int i = 0; i < n; i++) {
+            remaining[i] = dependencyOffsets[i + 1] - dependencyOffsets[i];
+        }
+        // The plugins with no remaining dependencies, in order of plugin ID
+        BitSet ready = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (remaining[i] == 0) {
+                ready.set(i);
+            }
+        }
+        BitSet done = new BitSet(n);
+        List<String> result = new ArrayList<>(n);
+        for (int i = ready.nextSetBit(0); i >= 0; i = ready.nextSetBit(0)) {
+            ready.clear(i);
+            done.set(i);
+            result.add(pluginIds[i]);
+            for (int e = dependentOffsets[i]; e < dependentOffsets[i + 1]; e++) {
+                if (--remaining[dependents[e]] == 0) {
+                    ready.set(dependents[e]);
+                }
+            }
+        }
+        for (int i = done.nextClearBit(0); i < n; i = done.nextClearBit(i + 1)) {
+            result.add(pluginIds[i]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private int indexOf(String pluginId) {
+        int index = Arrays.binarySearch(pluginIds, pluginId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown plugin: " + pluginId);
+        }
+        return index;
+    }
+
+    private static BitSet neighbors(int index, int[] offsets, int[] targets) {
+        BitSet result = new BitSet();
+        for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+            result.set(targets[e]);
+        }
+        return result;
+    }
+
+    private BitSet closure(Collection<String> start, int[] offsets, int[] targets) {
+        BitSet visited = new BitSet(pluginIds.length);
+        int[] stack = new int[pluginIds.length];
+        int size = 0;
+        for (String pluginId : start) {
+            int index = Arrays.binarySearch(pluginIds, pluginId);
+            if (index >= 0 && !visited.get(index)) {
+                visited.set(index);
+                stack[size++] = index;
+            }
+        }
+        while (size > 0) {
+            int index = stack[--size];
+            for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+                if (!visited.get(targets[e])) {
+                    visited.set(targets[e]);
+                    stack[size++] = targets[e];
+                }
+            }
+        }
+        return visited;
+    }
+
+    private Set<String> toSet(BitSet indexes) {
+        Set<String> result = new TreeSet<>();
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            result.add(pluginIds[i]);
+        }
+        return Collections.unmodifiableSet(result);
+    }
+}
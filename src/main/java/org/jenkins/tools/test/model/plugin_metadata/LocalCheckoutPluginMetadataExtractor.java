@@ -6,6 +6,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkins.tools.test.exception.MetadataExtractionException;
@@ -44,11 +45,14 @@ public class LocalCheckoutPluginMetadataExtractor {
 
     public List<Plugin> extractMetadata() throws MetadataExtractionException, PomExecutionException {
         List<Plugin> plugins = new ArrayList<>();
+        // The root evaluator is shared so that the root effective POM is only computed once
+        ExpressionEvaluator root = new ExpressionEvaluator(localCheckoutDir, null, runner);
         List<String> modules = new ArrayList<>();
         modules.add(null); // Root module
-        modules.addAll(getModules());
+        modules.addAll(root.evaluateList("project.modules"));
         for (String module : modules) {
-            Plugin plugin = getPlugin(module);
+            Plugin plugin = getPlugin(
+                    module, module == null ? root : new ExpressionEvaluator(localCheckoutDir, module, runner));
             if (plugin == null) {
                 continue;
             }
@@ -69,19 +73,12 @@ public class LocalCheckoutPluginMetadataExtractor {
         return List.copyOf(plugins);
     }
 
-    private List<String> getModules() throws PomExecutionException {
-        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(localCheckoutDir, null, runner);
-        return expressionEvaluator.evaluateList("project.modules");
-    }
-
     @CheckForNull
-    private Plugin getPlugin(String module) throws PomExecutionException {
-        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(localCheckoutDir, module, runner);
-        String packaging = expressionEvaluator.evaluateString("project.packaging");
-        if ("hpi".equals(packaging)) {
-            String pluginId = expressionEvaluator.evaluateString("project.artifactId");
-            String version = expressionEvaluator.evaluateString("project.version");
-            return toPlugin(pluginId, version, localCheckoutDir, module);
+    private Plugin getPlugin(String module, ExpressionEvaluator expressionEvaluator) throws PomExecutionException {
+        Map<String, String> values = expressionEvaluator.evaluateStrings(
+                List.of("project.packaging", "project.artifactId", "project.version"));
+        if ("hpi".equals(values.get("project.packaging"))) {
+            return toPlugin(values.get("project.artifactId"), values.get("project.version"), localCheckoutDir, module);
         }
         return null;
     }
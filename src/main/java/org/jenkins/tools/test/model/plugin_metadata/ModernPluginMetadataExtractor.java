@@ -32,6 +32,18 @@ public class ModernPluginMetadataExtractor implements PluginMetadataExtractor {
         return manifest.getMainAttributes().containsKey(PLUGIN_SCM_CONNECTION);
     }
 
+    @Override
+    public boolean isApplicableLazily(String pluginId, Manifest manifest, ModelSupplier model) {
+        // The model is never needed
+        return isApplicable(pluginId, manifest, (Model) null);
+    }
+
+    @Override
+    public Plugin extractMetadataLazily(String pluginId, Manifest manifest, ModelSupplier model)
+            throws MetadataExtractionException {
+        return extractMetadata(pluginId, manifest, (Model) null);
+    }
+
     @Override
     public Plugin extractMetadata(String pluginId, Manifest manifest, Model model) throws MetadataExtractionException {
         // All the information is stored in the plugin's manifest
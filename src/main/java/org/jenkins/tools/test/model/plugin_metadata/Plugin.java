@@ -2,7 +2,11 @@ package org.jenkins.tools.test.model.plugin_metadata;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import org.jenkins.tools.test.exception.MetadataExtractionException;
 
 /**
@@ -30,6 +34,12 @@ public class Plugin {
     @CheckForNull
     private final String name;
 
+    @NonNull
+    private final Set<String> dependencies;
+
+    @CheckForNull
+    private final String requiredCoreVersion;
+
     private Plugin(Builder builder) {
         this.pluginId = Objects.requireNonNull(builder.pluginId, "pluginId may not be null");
         this.version = Objects.requireNonNull(builder.version, "version may not be null");
@@ -38,6 +48,8 @@ public class Plugin {
         this.module = builder.module;
         this.gitHash = builder.gitHash;
         this.name = builder.name;
+        this.dependencies = Collections.unmodifiableSet(new TreeSet<>(builder.dependencies));
+        this.requiredCoreVersion = builder.requiredCoreVersion;
     }
 
     /**
@@ -97,6 +109,23 @@ public class Plugin {
         return name == null ? pluginId : name;
     }
 
+    /**
+     * The IDs of the plugins this plugin depends on, including optional dependencies; empty if unknown, as for a local
+     * checkout.
+     */
+    @NonNull
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * The minimum core version this plugin requires; {@code null} if unknown.
+     */
+    @CheckForNull
+    public String getRequiredCoreVersion() {
+        return requiredCoreVersion;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -112,12 +141,23 @@ public class Plugin {
                 && Objects.equals(getTag(), that.getTag())
                 && Objects.equals(getModule(), that.getModule())
                 && Objects.equals(getGitHash(), that.getGitHash())
-                && Objects.equals(getName(), that.getName());
+                && Objects.equals(getName(), that.getName())
+                && getDependencies().equals(that.getDependencies())
+                && Objects.equals(getRequiredCoreVersion(), that.getRequiredCoreVersion());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getPluginId(), getVersion(), getGitUrl(), getTag(), getModule(), getGitHash(), getName());
+        return Objects.hash(
+                getPluginId(),
+                getVersion(),
+                getGitUrl(),
+                getTag(),
+                getModule(),
+                getGitHash(),
+                getName(),
+                getDependencies(),
+                getRequiredCoreVersion());
     }
 
     public static final class Builder {
@@ -128,6 +168,8 @@ public class Plugin {
         private String module;
         private String gitHash;
         private String name;
+        private Collection<String> dependencies = Set.of();
+        private String requiredCoreVersion;
 
         public Builder() {}
 
@@ -139,6 +181,8 @@ public class Plugin {
             this.module = from.module;
             this.gitHash = from.gitHash;
             this.name = from.name;
+            this.dependencies = from.dependencies;
+            this.requiredCoreVersion = from.requiredCoreVersion;
         }
 
         public Builder withPluginId(String pluginId) {
@@ -190,6 +234,16 @@ public class Plugin {
             return this;
         }
 
+        public Builder withDependencies(Collection<String> dependencies) {
+            this.dependencies = dependencies;
+            return this;
+        }
+
+        public Builder withRequiredCoreVersion(String requiredCoreVersion) {
+            this.requiredCoreVersion = requiredCoreVersion;
+            return this;
+        }
+
         public Plugin build() {
             return new Plugin(this);
         }
@@ -9,6 +9,14 @@ import org.jenkins.tools.test.exception.MetadataExtractionException;
  */
 public interface PluginMetadataExtractor {
 
+    /**
+     * Loads the plugins' model on demand.
+     */
+    @FunctionalInterface
+    interface ModelSupplier {
+        Model get() throws MetadataExtractionException;
+    }
+
     /**
      * Determine whether the extractor is applicable to the given plugin.
      */
@@ -22,4 +30,23 @@ public interface PluginMetadataExtractor {
      * @return a fully populated {@link Plugin} for the given plugin.
      */
     Plugin extractMetadata(String pluginId, Manifest manifest, Model model) throws MetadataExtractionException;
+
+    /**
+     * Determine whether the extractor is applicable to the given plugin, loading the model only if needed. Loading the
+     * model requires reading the whole HPI, so extractors that only need the manifest should override this method.
+     */
+    default boolean isApplicableLazily(String pluginId, Manifest manifest, ModelSupplier model)
+            throws MetadataExtractionException {
+        return isApplicable(pluginId, manifest, model.get());
+    }
+
+    /**
+     * Obtain the metadata for a give plugin, loading the model only if needed.
+     *
+     * @see #isApplicableLazily
+     */
+    default Plugin extractMetadataLazily(String pluginId, Manifest manifest, ModelSupplier model)
+            throws MetadataExtractionException {
+        return extractMetadata(pluginId, manifest, model.get());
+    }
 }
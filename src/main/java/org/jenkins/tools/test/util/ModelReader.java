@@ -1,6 +1,7 @@
 package org.jenkins.tools.test.util;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import org.apache.maven.model.Model;
@@ -27,22 +28,49 @@ public class ModelReader {
      */
     public static Model getPluginModelFromHpi(String groupId, String artifactId, JarInputStream jarInputStream)
             throws MetadataExtractionException, IOException {
-        Model model = null;
-        final String entryName = "META-INF/maven/" + groupId + "/" + artifactId + "/pom.xml";
+        final String entryName = getPomEntryName(groupId, artifactId);
         JarEntry jarEntry;
         while ((jarEntry = jarInputStream.getNextJarEntry()) != null) {
             if (entryName.equals(jarEntry.getName())) {
-                try {
-                    MavenXpp3Reader mavenXpp3Reader = new MavenXpp3Reader();
-                    model = mavenXpp3Reader.read(jarInputStream);
-                    break;
-                } catch (XmlPullParserException e) {
-                    throw new MetadataExtractionException("Failed to parse pom.xml", e);
-                }
+                return read(jarInputStream);
             }
         }
-        if (model == null) {
-            throw new MetadataExtractionException(entryName + " was not found in the plugin HPI");
+        throw new MetadataExtractionException(entryName + " was not found in the plugin HPI");
+    }
+
+    /**
+     * Load the model that is embedded inside the plugin in {@code
+     * META-INF/maven/${groupId}/${artifactId}/pom.xml}, reading only that entry of the plugin.
+     *
+     * @param groupId the groupId of the plugin
+     * @param artifactId the artifactId of the plugin
+     * @param hpi the plugin's JAR file, as nested in the WAR.
+     * @return the Maven model for the plugin as read from the {@code META-INF} directory.
+     * @throws MetadataExtractionException if the entry could not be loaded or found.
+     * @throws IOException if there was an I/O related issue obtaining the model.
+     */
+    public static Model getPluginModelFromHpi(String groupId, String artifactId, NestedArchiveReader.NestedArchive hpi)
+            throws MetadataExtractionException, IOException {
+        final String entryName = getPomEntryName(groupId, artifactId);
+        try (InputStream is = hpi.getInputStream(entryName)) {
+            if (is == null) {
+                throw new MetadataExtractionException(entryName + " was not found in the plugin HPI");
+            }
+            return read(is);
+        }
+    }
+
+    private static String getPomEntryName(String groupId, String artifactId) {
+        return "META-INF/maven/" + groupId + "/" + artifactId + "/pom.xml";
+    }
+
+    private static Model read(InputStream is) throws MetadataExtractionException, IOException {
+        Model model;
+        try {
+            MavenXpp3Reader mavenXpp3Reader = new MavenXpp3Reader();
+            model = mavenXpp3Reader.read(is);
+        } catch (XmlPullParserException e) {
+            throw new MetadataExtractionException("Failed to parse pom.xml", e);
         }
 
         Scm scm = model.getScm();
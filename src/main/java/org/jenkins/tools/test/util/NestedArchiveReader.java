@@ -0,0 +1,464 @@
+package org.jenkins.tools.test.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads individual entries of the archives nested in a WAR (such as the plugins in {@code WEB-INF/plugins/}) without
+ * reading the nested archives from the start.
+ *
+ * <p>The central directory of the WAR locates the nested archive, and the central directory of the nested archive
+ * locates the entry, so only the directories and the requested entries are read. This requires the nested archive to
+ * be stored uncompressed in the WAR. One that is compressed cannot be read from its end without inflating all of it,
+ * so it is instead inflated as a stream from its start, stopping at the requested entry; as the manifest comes first,
+ * reading it costs little, and no more than a buffer per stream is held in memory either way.
+ *
+ * <p>Archives that use ZIP64 extensions or span multiple disks are not supported; {@link #open} returns {@code null}
+ * for them, and the caller is expected to fall back to streaming. Positioned reads do not change the state of the
+ * channel, so an instance may be used by several threads, though each {@link NestedArchive} by only one at a time.
+ */
+public class NestedArchiveReader implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(NestedArchiveReader.class.getName());
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+
+    private static final int END_LENGTH = 22;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @NonNull
+    private final File file;
+
+    @NonNull
+    private final FileChannel channel;
+
+    @CheckForNull
+    private final Map<String, Entry> entries;
+
+    public NestedArchiveReader(@NonNull File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        Map<String, Entry> result;
+        try {
+            result = readCentralDirectory(new ChannelSource(channel, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.entries = result;
+    }
+
+    /**
+     * Open the given nested archive.
+     *
+     * @param name the name of the entry in the outer archive
+     * @return the nested archive, or {@code null} if the entry does not exist or cannot be read by this class
+     */
+    @CheckForNull
+    public NestedArchive open(@NonNull String name) throws IOException {
+        if (entries == null) {
+            return null;
+        }
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        ChannelSource outer = new ChannelSource(channel, 0, channel.size());
+        if (entry.method == ZipEntry.DEFLATED) {
+            return new StreamedArchive(new ChannelSource(channel, getDataOffset(outer, entry), entry.compressedSize));
+        } else if (entry.method != ZipEntry.STORED) {
+            LOGGER.log(Level.FINE, "Cannot read {0} in {1} randomly", new Object[] {name, file});
+            return null;
+        }
+        ChannelSource source = new ChannelSource(channel, getDataOffset(outer, entry), entry.size);
+        Map<String, Entry> nestedEntries = readCentralDirectory(source);
+        if (nestedEntries == null) {
+            LOGGER.log(Level.FINE, "Cannot read {0} in {1} randomly", new Object[] {name, file});
+            return null;
+        }
+        return new IndexedArchive(source, nestedEntries);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * An archive nested in the WAR.
+     */
+    public abstract static class NestedArchive implements Closeable {
+
+        private NestedArchive() {}
+
+        /**
+         * The manifest of the nested archive, or {@code null} if it has none.
+         */
+        @CheckForNull
+        public Manifest getManifest() throws IOException {
+            try (InputStream is = getInputStream(JarFile.MANIFEST_NAME)) {
+                return is == null ? null : new Manifest(is);
+            }
+        }
+
+        /**
+         * The contents of the given entry of the nested archive, or {@code null} if there is no such entry. The stream
+         * is valid until the next call.
+         */
+        @CheckForNull
+        public abstract InputStream getInputStream(@NonNull String name) throws IOException;
+
+        @Override
+        public void close() throws IOException {}
+    }
+
+    /**
+     * A nested archive stored uncompressed in the WAR, whose entries are located through its central directory.
+     */
+    private static final class IndexedArchive extends NestedArchive {
+
+        @NonNull
+        private final ChannelSource source;
+
+        @NonNull
+        private final Map<String, Entry> entries;
+
+        IndexedArchive(@NonNull ChannelSource source, @NonNull Map<String, Entry> entries) {
+            this.source = source;
+            this.entries = entries;
+        }
+
+        @Override
+        public InputStream getInputStream(@NonNull String name) throws IOException {
+            Entry entry = entries.get(name);
+            if (entry == null) {
+                return null;
+            }
+            long offset = getDataOffset(source, entry);
+            if (offset + entry.compressedSize > source.size()) {
+                throw new EOFException("Read beyond the end of the archive");
+            }
+            if (entry.method == ZipEntry.STORED) {
+                return new SourceInputStream(source, offset, entry.compressedSize, false);
+            } else if (entry.method == ZipEntry.DEFLATED) {
+                return new EntryInputStream(new SourceInputStream(source, offset, entry.compressedSize, true));
+            }
+            throw new IOException("Unsupported compression method " + entry.method);
+        }
+    }
+
+    /**
+     * A nested archive compressed in the WAR, whose entries are found by inflating it from the start.
+     */
+    private static final class StreamedArchive extends NestedArchive {
+
+        @NonNull
+        private final ChannelSource source;
+
+        @CheckForNull
+        private ZipInputStream stream;
+
+        /** The number of entries of {@link #stream} read so far. */
+        private int read;
+
+        StreamedArchive(@NonNull ChannelSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public InputStream getInputStream(@NonNull String name) throws IOException {
+            // Entries are usually requested in the order in which they are stored, so carry on from the last one
+            if (stream != null) {
+                boolean fromStart = read == 0;
+                InputStream is = find(name);
+                if (is != null || fromStart) {
+                    return is;
+                }
+            }
+            stream = new ZipInputStream(new EntryInputStream(new SourceInputStream(source, 0, source.size(), true)));
+            read = 0;
+            return find(name);
+        }
+
+        /**
+         * Find the given entry among the remaining ones, closing the stream if there is none.
+         */
+        @CheckForNull
+        private InputStream find(String name) throws IOException {
+            ZipEntry entry;
+            while ((entry = stream.getNextEntry()) != null) {
+                read++;
+                if (entry.getName().equals(name)) {
+                    // Closing the entry must not close the archive
+                    return new FilterInputStream(stream) {
+                        @Override
+                        public void close() {}
+                    };
+                }
+            }
+            close();
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
+    }
+
+    /**
+     * The location of an entry, as recorded in the central directory.
+     */
+    private static final class Entry {
+
+        final int method;
+
+        final long compressedSize;
+
+        final long size;
+
+        final long localHeaderOffset;
+
+        Entry(int method, long compressedSize, long size, long localHeaderOffset) {
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+    /**
+     * A range of bytes of the WAR holding an archive.
+     */
+    private static final class ChannelSource {
+
+        private final FileChannel channel;
+
+        private final long offset;
+
+        private final long size;
+
+        ChannelSource(FileChannel channel, long offset, long size) {
+            this.channel = channel;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        long size() {
+            return size;
+        }
+
+        /**
+         * Read exactly {@code length} bytes at the given position, relative to the start of the archive.
+         */
+        ByteBuffer read(long position, int length) throws IOException {
+            if (position < 0 || position + length > size) {
+                throw new EOFException("Read beyond the end of the archive");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + position + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of file");
+                }
+            }
+            return buffer.flip();
+        }
+
+        /**
+         * Read at most {@code length} bytes at the given position, relative to the start of the archive.
+         *
+         * @return the number of bytes read, or -1 at the end of the file
+         */
+        int read(long position, byte[] b, int off, int length) throws IOException {
+            return channel.read(ByteBuffer.wrap(b, off, length), offset + position);
+        }
+    }
+
+    /**
+     * Reads a range of an archive with positioned reads.
+     */
+    private static final class SourceInputStream extends InputStream {
+
+        private final ChannelSource source;
+
+        private long position;
+
+        private final long end;
+
+        /** Whether to add a dummy byte at the end, which {@link Inflater} needs to detect the end of raw data. */
+        private boolean padding;
+
+        SourceInputStream(ChannelSource source, long position, long length, boolean padding) {
+            this.source = source;
+            this.position = position;
+            this.end = position + length;
+            this.padding = padding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(b[0]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                if (padding) {
+                    padding = false;
+                    b[off] = 0;
+                    return 1;
+                }
+                return -1;
+            }
+            int n = source.read(position, b, off, (int) Math.min(len, end - position));
+            if (n < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+            position += n;
+            return n;
+        }
+    }
+
+    /**
+     * Inflates raw compressed data, releasing the inflater when closed.
+     */
+    private static final class EntryInputStream extends InflaterInputStream {
+
+        EntryInputStream(InputStream in) {
+            super(in, new Inflater(true), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+
+    /**
+     * The raw central directory of the given archive, which records the name, size, and CRC-32 of every entry.
+     *
+     * @return the central directory, or {@code null} if the archive uses features that are not supported
+     */
+    @CheckForNull
+    static ByteBuffer getCentralDirectory(@NonNull File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return locateCentralDirectory(new ChannelSource(channel, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read the central directory of the given archive.
+     *
+     * @return the entries by name, or {@code null} if the archive uses features that are not supported
+     */
+    @CheckForNull
+    private static Map<String, Entry> readCentralDirectory(ChannelSource source) throws IOException {
+        ByteBuffer directory = locateCentralDirectory(source);
+        if (directory == null) {
+            return null;
+        }
+        Map<String, Entry> result = new HashMap<>();
+        int position = 0;
+        while (position < directory.limit()) {
+            if (directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new IOException("Corrupt central directory");
+            }
+            int flags = Short.toUnsignedInt(directory.getShort(position + 8));
+            int method = Short.toUnsignedInt(directory.getShort(position + 10));
+            long compressedSize = Integer.toUnsignedLong(directory.getInt(position + 20));
+            long size = Integer.toUnsignedLong(directory.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(position + 42));
+            if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                return null;
+            }
+            byte[] name = new byte[nameLength];
+            directory.duplicate().position(position + CENTRAL_HEADER_LENGTH).get(name);
+            // Bit 11: the name is in UTF-8; otherwise in the legacy code page, which agrees with UTF-8 for ASCII
+            Charset charset = (flags & 0x800) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+            result.putIfAbsent(new String(name, charset), new Entry(method, compressedSize, size, localHeaderOffset));
+            position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+        }
+        return result;
+    }
+
+    @CheckForNull
+    private static ByteBuffer locateCentralDirectory(ChannelSource source) throws IOException {
+        // The end of central directory record is followed by a comment of up to 65535 bytes
+        int tailLength = (int) Math.min(source.size(), END_LENGTH + 0xFFFF);
+        ByteBuffer tail = source.read(source.size() - tailLength, tailLength);
+        int end = -1;
+        for (int i = tailLength - END_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new IOException("Not an archive: missing end of central directory record");
+        }
+        int disk = Short.toUnsignedInt(tail.getShort(end + 4));
+        int count = Short.toUnsignedInt(tail.getShort(end + 10));
+        long directorySize = Integer.toUnsignedLong(tail.getInt(end + 12));
+        long directoryOffset = Integer.toUnsignedLong(tail.getInt(end + 16));
+        if (disk != 0 || count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            return null;
+        }
+        return source.read(directoryOffset, (int) directorySize);
+    }
+
+    private static long getDataOffset(ChannelSource source, Entry entry) throws IOException {
+        ByteBuffer header = source.read(entry.localHeaderOffset, LOCAL_HEADER_LENGTH);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("Corrupt local header");
+        }
+        // The local extra field may differ from the one in the central directory
+        int nameLength = Short.toUnsignedInt(header.getShort(26));
+        int extraLength = Short.toUnsignedInt(header.getShort(28));
+        return entry.localHeaderOffset + LOCAL_HEADER_LENGTH + nameLength + extraLength;
+    }
+}
@@ -0,0 +1,258 @@
+package org.jenkins.tools.test.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.model.plugin_metadata.PluginMetadataExtractor;
+
+/**
+ * An on-disk index of the metadata of every plugin in a WAR, so that repeated runs against the same WAR (for example,
+ * with different {@code --include-plugins} shards) do not extract the metadata again.
+ *
+ * <p>An index is keyed by the size and central directory of the WAR, which records the name, size, and CRC-32 of every
+ * entry, and by the metadata extractors in use. The modification time is deliberately not part of the key, so a copy
+ * of the same WAR reuses the index. Each index is a single file of length-prefixed strings that is written atomically,
+ * so concurrent runs may share the directory. Plugins are recorded by the name of their entry in the WAR, together with
+ * the entries whose metadata could not be extracted, so that excluding such an entry does not prevent indexing.
+ */
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "intended behavior")
+final class PluginIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(PluginIndex.class.getName());
+
+    /** Incremented whenever the format of the index or the meaning of its fields changes. */
+    private static final int VERSION = 3;
+
+    private static final int MAGIC = 0x50435449; // PCTI
+
+    @NonNull
+    private final File file;
+
+    private PluginIndex(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * The index of the given WAR in the given directory, which need not exist yet.
+     *
+     * @return the index, or {@code null} if the WAR cannot be fingerprinted
+     */
+    @CheckForNull
+    static PluginIndex of(
+            @NonNull File directory, @NonNull File warFile, @NonNull List<PluginMetadataExtractor> extractors) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required by the Java platform", e);
+        }
+        ByteBuffer centralDirectory;
+        try {
+            centralDirectory = NestedArchiveReader.getCentralDirectory(warFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the central directory of " + warFile, e);
+        }
+        if (centralDirectory == null) {
+            LOGGER.log(Level.INFO, "Not indexing {0}, which uses unsupported archive features", warFile);
+            return null;
+        }
+        digest.update(ByteBuffer.allocate(12)
+                .putInt(VERSION)
+                .putLong(warFile.length())
+                .flip());
+        digest.update(centralDirectory);
+        for (PluginMetadataExtractor extractor : extractors) {
+            digest.update(extractor.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder name = new StringBuilder();
+        for (byte b : digest.digest()) {
+            name.append(String.format("%02x", b));
+        }
+        return new PluginIndex(new File(directory, name.append(".idx").toString()));
+    }
+
+    @NonNull
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Load the contents of the index.
+     *
+     * @return the contents, or {@code null} if the index does not exist or cannot be read
+     */
+    @CheckForNull
+    Contents load() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.log(Level.WARNING, "Ignoring plugin index {0} in an unknown format", file);
+                return null;
+            }
+            int count = in.readInt();
+            Map<String, Plugin> plugins = new HashMap<>();
+            Map<String, String> failures = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String entry = in.readUTF();
+                if (!in.readBoolean()) {
+                    failures.put(entry, in.readUTF());
+                    continue;
+                }
+                plugins.put(
+                        entry,
+                        new Plugin.Builder()
+                                .withPluginId(in.readUTF())
+                                .withVersion(in.readUTF())
+                                .withGitUrl(in.readUTF())
+                                .withTag(readNullable(in))
+                                .withModule(readNullable(in))
+                                .withGitHash(readNullable(in))
+                                .withName(in.readUTF())
+                                .withDependencies(readStrings(in))
+                                .withRequiredCoreVersion(readNullable(in))
+                                .build());
+            }
+            LOGGER.log(Level.INFO, "Loaded metadata for {0} plugins from {1}", new Object[] {plugins.size(), file});
+            return new Contents(plugins, failures);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable plugin index " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Store the given contents in the index, replacing any previous contents.
+     */
+    void store(@NonNull Contents contents) {
+        Map<String, Plugin> plugins = contents.getPlugins();
+        Map<String, String> failures = contents.getFailures();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Path tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            try {
+                try (DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(plugins.size() + failures.size());
+                    for (Map.Entry<String, String> failure : failures.entrySet()) {
+                        out.writeUTF(failure.getKey());
+                        out.writeBoolean(false);
+                        out.writeUTF(failure.getValue());
+                    }
+                    for (Map.Entry<String, Plugin> entry : plugins.entrySet()) {
+                        Plugin plugin = entry.getValue();
+                        out.writeUTF(entry.getKey());
+                        out.writeBoolean(true);
+                        out.writeUTF(plugin.getPluginId());
+                        out.writeUTF(plugin.getVersion());
+                        out.writeUTF(plugin.getGitUrl());
+                        writeNullable(out, plugin.getTag());
+                        writeNullable(out, plugin.getModule());
+                        writeNullable(out, plugin.getGitHash());
+                        // An unknown name reads back as the plugin ID, which is what it defaults to
+                        out.writeUTF(plugin.getName());
+                        out.writeInt(plugin.getDependencies().size());
+                        for (String dependency : plugin.getDependencies()) {
+                            out.writeUTF(dependency);
+                        }
+                        writeNullable(out, plugin.getRequiredCoreVersion());
+                    }
+                }
+                try {
+                    Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write plugin index " + file, e);
+        }
+        LOGGER.log(Level.INFO, "Stored metadata for {0} plugins in {1}", new Object[] {plugins.size(), file});
+    }
+
+    /** The plugins and the failures recorded in an index, by entry name. */
+    static final class Contents {
+
+        @NonNull
+        private final Map<String, Plugin> plugins;
+
+        @NonNull
+        private final Map<String, String> failures;
+
+        Contents(@NonNull Map<String, Plugin> plugins, @NonNull Map<String, String> failures) {
+            this.plugins = Map.copyOf(plugins);
+            this.failures = Map.copyOf(failures);
+        }
+
+        /** The plugins whose metadata was extracted, by entry name. */
+        @NonNull
+        Map<String, Plugin> getPlugins() {
+            return plugins;
+        }
+
+        /** The reasons the metadata of the remaining entries could not be extracted, by entry name. */
+        @NonNull
+        Map<String, String> getFailures() {
+            return failures;
+        }
+
+        /** Whether every given entry is recorded, whether as a plugin or as a failure. */
+        boolean containsAll(@NonNull Collection<String> entries) {
+            for (String entry : entries) {
+                if (!plugins.containsKey(entry) && !failures.containsKey(entry)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @CheckForNull
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(in.readUTF());
+        }
+        return result;
+    }
+
+    private static void writeNullable(DataOutputStream out, @CheckForNull String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
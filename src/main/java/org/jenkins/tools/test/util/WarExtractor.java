@@ -6,12 +6,24 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
@@ -30,6 +42,8 @@ public class WarExtractor {
 
     private static final String PREFIX = "WEB-INF/plugins/";
 
+    private static final String LIB_PREFIX = "WEB-INF/lib/";
+
     private static final String SUFFIX = ".hpi";
 
     @NonNull
@@ -44,12 +58,58 @@ public class WarExtractor {
     @CheckForNull
     private final Set<String> excludedPlugins;
 
+    @CheckForNull
+    private final File indexDirectory;
+
+    private final int threads;
+
     public WarExtractor(
             File warFile, ServiceHelper serviceHelper, Set<String> includedPlugins, Set<String> excludedPlugins) {
+        this(warFile, serviceHelper, includedPlugins, excludedPlugins, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param indexDirectory the directory in which to keep an index of the metadata of every plugin in each WAR, or
+     *     {@code null} to extract the metadata on every call
+     */
+    public WarExtractor(
+            File warFile,
+            ServiceHelper serviceHelper,
+            Set<String> includedPlugins,
+            Set<String> excludedPlugins,
+            @CheckForNull File indexDirectory) {
+        this(
+                warFile,
+                serviceHelper,
+                includedPlugins,
+                excludedPlugins,
+                indexDirectory,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threads the number of threads with which to extract plugin metadata
+     */
+    WarExtractor(
+            File warFile,
+            ServiceHelper serviceHelper,
+            Set<String> includedPlugins,
+            Set<String> excludedPlugins,
+            @CheckForNull File indexDirectory,
+            int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
         this.warFile = warFile;
         this.extractors = serviceHelper.loadServices(PluginMetadataExtractor.class);
         this.includedPlugins = includedPlugins;
         this.excludedPlugins = excludedPlugins;
+        this.indexDirectory = indexDirectory;
+        this.threads = threads;
     }
 
     /**
@@ -70,54 +130,256 @@ public class WarExtractor {
         }
     }
 
+    /**
+     * Identify the libraries and plugins bundled in the given WAR by their contents, without extracting them.
+     *
+     * @return The CRC-32 of each entry in {@code WEB-INF/lib/} and {@code WEB-INF/plugins/}, by entry name.
+     */
+    public NavigableMap<String, Long> extractBundledArchives() {
+        NavigableMap<String, Long> result = new TreeMap<>();
+        try (JarFile jf = new JarFile(warFile)) {
+            Enumeration<JarEntry> entries = jf.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory()
+                        && (entry.getName().startsWith(LIB_PREFIX)
+                                || entry.getName().startsWith(PREFIX))) {
+                    result.put(entry.getName(), entry.getCrc());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list bundled archives of " + warFile, e);
+        }
+        return Collections.unmodifiableNavigableMap(result);
+    }
+
+    /**
+     * Read the manifest of every plugin in the given WAR, regardless of the included and excluded plugins. Unlike
+     * {@link #extractPlugins}, this does not need the metadata extractors to apply to the plugins.
+     *
+     * @return The manifests, by plugin ID.
+     */
+    public NavigableMap<String, Manifest> extractManifests() {
+        NavigableMap<String, Manifest> result = new TreeMap<>();
+        try (JarFile jf = new JarFile(warFile);
+                NestedArchiveReader reader = new NestedArchiveReader(warFile)) {
+            Enumeration<JarEntry> entries = jf.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!isPlugin(entry)) {
+                    continue;
+                }
+                Manifest manifest = getManifest(jf, reader, entry);
+                String pluginId = manifest.getMainAttributes().getValue("Short-Name");
+                result.put(pluginId != null ? pluginId : getPluginId(entry), manifest);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("I/O error occurred whilst reading plugin manifests from WAR", e);
+        }
+        return result;
+    }
+
+    @NonNull
+    private static Manifest getManifest(JarFile jf, NestedArchiveReader reader, JarEntry entry) throws IOException {
+        try (NestedArchiveReader.NestedArchive hpi = reader.open(entry.getName())) {
+            Manifest manifest = hpi != null ? hpi.getManifest() : null;
+            if (manifest != null) {
+                return manifest;
+            }
+        }
+        try (JarInputStream jis = new JarInputStream(jf.getInputStream(entry))) {
+            Manifest manifest = jis.getManifest();
+            return manifest != null ? manifest : new Manifest();
+        }
+    }
+
     /**
      * Extract the list of plugins to be tested from the given WAR.
      *
+     * <p>The plugins are extracted concurrently, each thread reading the WAR through its own {@link JarFile} and {@link
+     * NestedArchiveReader}. If an index directory was given, the metadata of every plugin is extracted once per WAR,
+     * recording the plugins whose metadata cannot be extracted rather than failing, and the plugins to be tested are
+     * then read from the index. Either way, the plugins are selected by the names of their entries in the WAR.
+     *
      * @return An unmodifiable list of plugins to be tested, sorted by plugin ID.
      * @throws MetadataExtractionException if a non-I/O related issue occurs when the list of plugins is extracted or, if after applying filters, no plugins are located.
      */
     public List<Plugin> extractPlugins() throws MetadataExtractionException {
-        List<Plugin> plugins = new ArrayList<>();
+        List<String> selected = getPluginEntries(true);
+        if (selected.isEmpty()) {
+            throw new MetadataExtractionException("Found no plugins in " + warFile);
+        }
+        PluginIndex index = indexDirectory != null ? PluginIndex.of(indexDirectory, warFile, extractors) : null;
+        if (index == null) {
+            return sorted(extractPlugins(selected, null).values());
+        }
+        PluginIndex.Contents contents = index.load();
+        if (contents == null || !contents.containsAll(selected)) {
+            Map<String, String> failures = new ConcurrentHashMap<>();
+            Map<String, Plugin> plugins = extractPlugins(getPluginEntries(false), failures);
+            contents = new PluginIndex.Contents(plugins, failures);
+            index.store(contents);
+        }
+        List<Plugin> result = new ArrayList<>();
+        for (String name : selected) {
+            String failure = contents.getFailures().get(name);
+            if (failure != null) {
+                throw new MetadataExtractionException(failure);
+            }
+            result.add(contents.getPlugins().get(name));
+        }
+        return sorted(result);
+    }
+
+    /**
+     * Parse a {@code Plugin-Dependencies} manifest attribute, such as {@code
+     * credentials:2.6.1,ssh-credentials:1.18;resolution:=optional}.
+     *
+     * @return The IDs of the plugins in the attribute.
+     */
+    public static Set<String> parseDependencies(@CheckForNull String value) {
+        Set<String> result = new TreeSet<>();
+        if (value == null) {
+            return result;
+        }
+        for (String dependency : value.split(",")) {
+            String pluginId = dependency.split("[:;]", 2)[0].trim();
+            if (!pluginId.isEmpty()) {
+                result.add(pluginId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The names of the plugin entries of the WAR.
+     *
+     * @param filter whether to apply the included and excluded plugins
+     */
+    private List<String> getPluginEntries(boolean filter) {
+        List<String> result = new ArrayList<>();
         try (JarFile jf = new JarFile(warFile)) {
             Enumeration<JarEntry> entries = jf.entries();
             while (entries.hasMoreElements()) {
                 JarEntry entry = entries.nextElement();
-                if (isInteresting(entry)) {
-                    plugins.add(getPlugin(jf, entry));
+                if (isPlugin(entry) && (!filter || isIncluded(getPluginId(entry)))) {
+                    result.add(entry.getName());
                 }
             }
         } catch (IOException e) {
             throw new UncheckedIOException("I/O error occurred whilst extracting plugin metadata from WAR", e);
         }
-        if (plugins.isEmpty()) {
-            throw new MetadataExtractionException("Found no plugins in " + warFile);
-        }
-        plugins.sort(Comparator.comparing(Plugin::getPluginId));
-        return List.copyOf(plugins);
+        return result;
+    }
+
+    private static List<Plugin> sorted(Collection<Plugin> plugins) {
+        List<Plugin> result = new ArrayList<>(plugins);
+        result.sort(Comparator.comparing(Plugin::getPluginId));
+        return List.copyOf(result);
     }
 
     /**
-     * Predicate that will check if the given {@link JarEntry} is an interesting plugin. Detached
-     * plugins are ignored. If the plugin is excluded, it will be ignored. If the set of included
-     * plugins is not empty, the plugin will be ignored if it is not in the set of included plugins.
+     * Extract the metadata of the given plugin entries.
      *
-     * @return {@code true} iff {@code entry} represents a plugin in {@code WEB-INF/plugins/}
+     * @param failures where to record the entries whose metadata cannot be extracted, with the reason; if {@code null},
+     *     the first such entry fails the extraction
+     * @return the plugins, by entry name
      */
-    private boolean isInteresting(JarEntry entry) {
-        if (entry.getName().startsWith(PREFIX) && entry.getName().endsWith(SUFFIX)) {
-            String pluginId =
-                    entry.getName().substring(PREFIX.length(), entry.getName().length() - SUFFIX.length());
-            if (excludedPlugins != null && excludedPlugins.contains(pluginId)) {
-                LOGGER.log(Level.INFO, "Plugin {0} in excluded plugins; skipping", pluginId);
-                return false;
+    private Map<String, Plugin> extractPlugins(Collection<String> names, @CheckForNull Map<String, String> failures)
+            throws MetadataExtractionException {
+        Queue<String> pending = new ConcurrentLinkedQueue<>(names);
+        Map<String, Plugin> plugins = new ConcurrentHashMap<>();
+        if (pending.isEmpty()) {
+            return plugins;
+        }
+
+        int workers = Math.min(threads, pending.size());
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "pct-war-extractor-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    try (JarFile jf = new JarFile(warFile);
+                            NestedArchiveReader reader = new NestedArchiveReader(warFile)) {
+                        String name;
+                        while ((name = pending.poll()) != null) {
+                            try {
+                                plugins.put(name, getPlugin(jf, reader, jf.getJarEntry(name)));
+                            } catch (MetadataExtractionException e) {
+                                if (failures == null) {
+                                    throw e;
+                                }
+                                LOGGER.log(Level.WARNING, "Recording {0} as unextractable: {1}", new Object[] {
+                                    name, e.getMessage()
+                                });
+                                failures.put(name, e.getMessage());
+                            }
+                        }
+                    } catch (Exception | Error e) {
+                        // Stop the other workers early
+                        pending.clear();
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
             }
-            if (includedPlugins != null && !includedPlugins.isEmpty() && !includedPlugins.contains(pluginId)) {
-                LOGGER.log(Level.INFO, "Plugin {0} not in included plugins; skipping", pluginId);
-                return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MetadataExtractionException) {
+                throw (MetadataExtractionException) cause;
+            } else if (cause instanceof IOException) {
+                throw new UncheckedIOException(
+                        "I/O error occurred whilst extracting plugin metadata from WAR", (IOException) cause);
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
-            return true;
+            throw new MetadataExtractionException("Failed to extract plugin metadata from " + warFile, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MetadataExtractionException("Interrupted while extracting plugin metadata from " + warFile, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return plugins;
+    }
+
+    /**
+     * Predicate that will check if the given {@link JarEntry} is a plugin. Detached plugins are ignored.
+     *
+     * @return {@code true} iff {@code entry} represents a plugin in {@code WEB-INF/plugins/}
+     */
+    private static boolean isPlugin(JarEntry entry) {
+        return entry.getName().startsWith(PREFIX) && entry.getName().endsWith(SUFFIX);
+    }
+
+    private static String getPluginId(JarEntry entry) {
+        return entry.getName().substring(PREFIX.length(), entry.getName().length() - SUFFIX.length());
+    }
+
+    /**
+     * Predicate that will check if the given plugin is interesting. If the plugin is excluded, it will be ignored. If
+     * the set of included plugins is not empty, the plugin will be ignored if it is not in the set of included plugins.
+     */
+    private boolean isIncluded(String pluginId) {
+        if (excludedPlugins != null && excludedPlugins.contains(pluginId)) {
+            LOGGER.log(Level.INFO, "Plugin {0} in excluded plugins; skipping", pluginId);
+            return false;
         }
-        return false;
+        if (includedPlugins != null && !includedPlugins.isEmpty() && !includedPlugins.contains(pluginId)) {
+            LOGGER.log(Level.INFO, "Plugin {0} not in included plugins; skipping", pluginId);
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -127,29 +389,85 @@ public class WarExtractor {
      * @param entry The {@link JarEntry} representing the plugin.
      * @return The plugin metadata.
      */
-    private Plugin getPlugin(JarFile jf, JarEntry entry) throws MetadataExtractionException {
-        // The entry is the HPI file
-        Manifest manifest;
-        Model model;
-        String pluginId;
+    private Plugin getPlugin(JarFile jf, NestedArchiveReader reader, JarEntry entry)
+            throws MetadataExtractionException {
+        // The entry is the HPI file; where possible, read only the manifest and the POM through its central directory
+        try (NestedArchiveReader.NestedArchive hpi = reader.open(entry.getName())) {
+            Manifest nestedManifest = hpi != null ? hpi.getManifest() : null;
+            if (nestedManifest != null) {
+                String groupId = nestedManifest.getMainAttributes().getValue("Group-Id");
+                String pluginId = nestedManifest.getMainAttributes().getValue("Short-Name");
+                LazyModel model = new LazyModel(() -> {
+                    try {
+                        return ModelReader.getPluginModelFromHpi(groupId, pluginId, hpi);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return getPlugin(entry, pluginId, nestedManifest, model);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
         try (JarInputStream jis = new JarInputStream(jf.getInputStream(entry))) {
-            manifest = jis.getManifest();
+            Manifest manifest = jis.getManifest();
             String groupId = manifest.getMainAttributes().getValue("Group-Id");
-            String artifactId = pluginId = manifest.getMainAttributes().getValue("Short-Name");
-            model = ModelReader.getPluginModelFromHpi(groupId, artifactId, jis);
+            String pluginId = manifest.getMainAttributes().getValue("Short-Name");
+            // The POM is usually near the end of the HPI, so only read that far if an extractor needs the model
+            LazyModel model = new LazyModel(() -> {
+                try {
+                    return ModelReader.getPluginModelFromHpi(groupId, pluginId, jis);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return getPlugin(entry, pluginId, manifest, model);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+    }
+
+    private Plugin getPlugin(JarEntry entry, String pluginId, Manifest manifest, LazyModel model)
+            throws MetadataExtractionException {
         // Once all plugins have adopted https://github.com/jenkinsci/maven-hpi-plugin/pull/436 this can be simplified
         LOGGER.log(Level.INFO, "Extracting metadata for {0}", pluginId);
         for (PluginMetadataExtractor extractor : extractors) {
-            if (extractor.isApplicable(pluginId, manifest, model)) {
-                return extractor.extractMetadata(pluginId, manifest, model);
+            if (extractor.isApplicableLazily(pluginId, manifest, model)) {
+                Plugin plugin = extractor.extractMetadataLazily(pluginId, manifest, model);
+                return new Plugin.Builder(plugin)
+                        .withDependencies(
+                                parseDependencies(manifest.getMainAttributes().getValue("Plugin-Dependencies")))
+                        .withRequiredCoreVersion(manifest.getMainAttributes().getValue("Jenkins-Version"))
+                        .build();
             }
         }
         throw new MetadataExtractionException("No metadata could be extracted for entry " + entry.getName());
     }
 
+    /**
+     * Loads the model at most once, so that it can be shared by all extractors.
+     */
+    private static class LazyModel implements PluginMetadataExtractor.ModelSupplier {
+
+        private final PluginMetadataExtractor.ModelSupplier loader;
+
+        @CheckForNull
+        private Model model;
+
+        LazyModel(PluginMetadataExtractor.ModelSupplier loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public Model get() throws MetadataExtractionException {
+            if (model == null) {
+                model = loader.get();
+            }
+            return model;
+        }
+    }
+
     /**
      * Group the plugins by repository.
      *
@@ -0,0 +1,38 @@
+package org.jenkins.tools.test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Local Git repositories to clone from in tests.
+ */
+final class GitFixtures {
+
+    private GitFixtures() {}
+
+    /**
+     * Create a repository with a single commit, tagged with {@code tag}, in which {@code file.txt} contains {@code tag}.
+     */
+    static File createRepository(File repository, String tag) throws Exception {
+        Files.createDirectories(repository.toPath());
+        PluginCompatTester.runCommand(repository, "git", "init");
+        commit(repository, tag);
+        return repository;
+    }
+
+    /**
+     * Commit all changes, tagged with {@code tag}, with {@code file.txt} containing {@code tag}.
+     */
+    static void commit(File repository, String tag) throws Exception {
+        Files.writeString(repository.toPath().resolve("file.txt"), tag, StandardCharsets.UTF_8);
+        PluginCompatTester.runCommand(repository, "git", "add", "--all");
+        PluginCompatTester.runCommand(
+                repository, "git", "-c", "user.name=PCT", "-c", "user.email=pct@example.com", "commit", "-m", tag);
+        PluginCompatTester.runCommand(repository, "git", "tag", tag);
+    }
+
+    static String getUrl(File repository) {
+        return "file://" + repository.getAbsolutePath();
+    }
+}
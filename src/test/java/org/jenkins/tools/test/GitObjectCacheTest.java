@@ -0,0 +1,93 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jenkins.tools.test.model.GitFetchStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GitObjectCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void checkoutBorrowsObjectsFromCache() throws Exception {
+        File remote = GitFixtures.createRepository(new File(tempDir, "remote"), "v1");
+        String gitUrl = GitFixtures.getUrl(remote);
+        GitObjectCache cache = new GitObjectCache(new File(tempDir, "cache"), null, 0);
+
+        File first = new File(tempDir, "first");
+        PluginCompatTester.cloneImpl(gitUrl, "v1", first, cache, GitFetchStrategy.FULL, null);
+        assertThat(Files.readString(first.toPath().resolve("file.txt"), StandardCharsets.UTF_8), is("v1"));
+        assertThat(getLocalObjects(first), empty());
+
+        GitFixtures.commit(remote, "v2");
+        File second = new File(tempDir, "second");
+        PluginCompatTester.cloneImpl(gitUrl, "v2", second, cache, GitFetchStrategy.FULL, null);
+        assertThat(Files.readString(second.toPath().resolve("file.txt"), StandardCharsets.UTF_8), is("v2"));
+        assertThat(getLocalObjects(second), empty());
+
+        File repository = cache.getRepository(gitUrl);
+        assertThat(new File(repository, GitObjectCache.getRef("v1")).isFile(), is(true));
+        assertThat(new File(repository, GitObjectCache.getRef("v2")).isFile(), is(true));
+    }
+
+    @Test
+    void evictsByAgeAndSize() throws Exception {
+        File cacheDir = new File(tempDir, "cache");
+        GitObjectCache cache = new GitObjectCache(cacheDir, Duration.ofDays(30), 0);
+        File stale = fetch(cache, "stale", Duration.ofDays(60));
+        File old = fetch(cache, "old", Duration.ofDays(2));
+        File recent = fetch(cache, "recent", Duration.ofDays(1));
+        File current = fetch(cache, "current", Duration.ZERO);
+
+        cache.evict();
+        assertThat(stale.exists(), is(false));
+        assertThat(old.exists() && recent.exists() && current.exists(), is(true));
+
+        // Only the most recently used repository fits
+        new GitObjectCache(cacheDir, null, size(current)).evict();
+        assertThat(old.exists() || recent.exists(), is(false));
+        assertThat(current.exists(), is(true));
+    }
+
+    private File fetch(GitObjectCache cache, String name, Duration age) throws Exception {
+        String gitUrl = GitFixtures.getUrl(GitFixtures.createRepository(new File(tempDir, name), name));
+        File repository = cache.fetch(gitUrl, name);
+        Files.setLastModifiedTime(
+                repository.toPath().resolve("pct-last-used"),
+                FileTime.from(Instant.now().minus(age)));
+        return repository;
+    }
+
+    /** Objects stored in the checkout itself rather than borrowed from the cache. */
+    private static List<Path> getLocalObjects(File checkout) throws Exception {
+        Path objects = checkout.toPath().resolve(".git/objects");
+        try (Stream<Path> files = Files.walk(objects)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !file.startsWith(objects.resolve("info")))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long size(File directory) throws Exception {
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import org.junit.jupiter.api.Test;
+
+class ImpactAnalysisTest {
+
+    @Test
+    void changed() {
+        Map<String, Manifest> baseline = manifests(
+                plugin("same", "1.0", "a"),
+                plugin("bumped", "1.0", "a"),
+                plugin("rebuilt", "1.0", "a"),
+                plugin("removed", "1.0", "a"));
+        Map<String, Manifest> current = manifests(
+                plugin("same", "1.0", "a"),
+                plugin("bumped", "1.1", "b"),
+                plugin("rebuilt", "1.0", "b"),
+                plugin("added", "1.0", "a"));
+        assertThat(ImpactAnalysis.getChanged(baseline, current), is(Set.of("bumped", "rebuilt", "added")));
+        assertThat(ImpactAnalysis.getRemoved(baseline, current), is(Set.of("removed")));
+    }
+
+    @Test
+    void affected() {
+        Map<String, Manifest> baseline = manifests(
+                plugin("api", "1.0", "a"),
+                plugin("credentials", "1.0", "a", "api"),
+                plugin("git-client", "1.0", "a", "credentials", "api"),
+                plugin("git", "1.0", "a", "git-client", "credentials"),
+                plugin("unrelated", "1.0", "a"),
+                plugin("uses-unrelated", "1.0", "a", "unrelated"));
+        Map<String, Manifest> current = manifests(
+                plugin("api", "1.0", "a"),
+                plugin("credentials", "1.1", "b", "api"),
+                plugin("git-client", "1.0", "a", "credentials", "api"),
+                plugin("git", "1.0", "a", "git-client", "credentials"),
+                plugin("unrelated", "1.0", "a"),
+                plugin("uses-unrelated", "1.0", "a", "unrelated"));
+        assertThat(ImpactAnalysis.getAffected(baseline, current), is(Set.of("credentials", "git-client", "git")));
+        assertThat(ImpactAnalysis.getAffected(current, current), is(Set.of()));
+    }
+
+    @Test
+    void affectedByRemoval() {
+        Map<String, Manifest> baseline = manifests(
+                plugin("optional", "1.0", "a"),
+                plugin("uses-optional", "1.0", "a", "optional"),
+                plugin("uses-uses-optional", "1.0", "a", "uses-optional"),
+                plugin("unrelated", "1.0", "a"));
+        Map<String, Manifest> current = manifests(
+                plugin("uses-optional", "1.0", "a"),
+                plugin("uses-uses-optional", "1.0", "a", "uses-optional"),
+                plugin("unrelated", "1.0", "a"));
+        assertThat(ImpactAnalysis.getAffected(baseline, current), is(Set.of("uses-optional", "uses-uses-optional")));
+    }
+
+    private static Map<String, Manifest> manifests(Manifest... manifests) {
+        Map<String, Manifest> result = new TreeMap<>();
+        for (Manifest manifest : manifests) {
+            result.put(manifest.getMainAttributes().getValue("Short-Name"), manifest);
+        }
+        return result;
+    }
+
+    private static Manifest plugin(String pluginId, String version, String gitHash, String... dependencies) {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.putValue("Short-Name", pluginId);
+        attributes.putValue("Plugin-Version", version);
+        attributes.putValue("Implementation-Build", gitHash);
+        if (dependencies.length > 0) {
+            attributes.putValue("Plugin-Dependencies", String.join(":1.0,", dependencies) + ":1.0");
+        }
+        return manifest;
+    }
+}
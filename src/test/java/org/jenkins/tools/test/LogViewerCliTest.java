@@ -0,0 +1,54 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import org.jenkins.tools.test.maven.BuildLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+class LogViewerCliTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void viewsAndGrepsLogs() throws Exception {
+        File logs = new File(tempDir, "logs");
+        File compressed = new File(logs, "a/v1.0_against_core_version_2.400.log.gz");
+        File plain = new File(logs, "b/v1.0_against_core_version_2.400.log");
+        Files.createDirectories(compressed.getParentFile().toPath());
+        Files.createDirectories(plain.getParentFile().toPath());
+        try (OutputStream os = new BuildLog(true, 0).open(compressed)) {
+            os.write("[INFO] Building a\n[ERROR] Tests failed\n".getBytes(Charset.defaultCharset()));
+        }
+        Files.writeString(plain.toPath(), "[INFO] Building b\n", Charset.defaultCharset());
+        new File(logs, "README").createNewFile();
+
+        assertThat(view(compressed.getPath()), is("[INFO] Building a" + NL + "[ERROR] Tests failed" + NL));
+        assertThat(
+                view(logs.getPath(), "--grep", "Building"),
+                is(compressed.getPath() + ":1:[INFO] Building a" + NL + plain.getPath() + ":1:[INFO] Building b" + NL));
+
+        LogViewerCli app = new LogViewerCli();
+        new CommandLine(app).parseArgs(logs.getPath(), "-g", "BUILD SUCCESS");
+        assertThat(app.view(new PrintStream(new ByteArrayOutputStream(), true, Charset.defaultCharset())), is(false));
+    }
+
+    private static String view(String... args) {
+        LogViewerCli app = new LogViewerCli();
+        new CommandLine(app).parseArgs(args);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        app.view(new PrintStream(out, true, Charset.defaultCharset()));
+        return out.toString(Charset.defaultCharset());
+    }
+}
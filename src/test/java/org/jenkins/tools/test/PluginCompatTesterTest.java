@@ -27,17 +27,27 @@
 package org.jenkins.tools.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import org.jenkins.tools.test.model.GitFetchStrategy;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.w3c.dom.Document;
@@ -100,4 +110,138 @@ class PluginCompatTesterTest {
                 "plugin-compat-tester",
                 PluginCompatTester.getRepoNameFromGitUrl("git@host.xz:jenkinsci/plugin-compat-tester"));
     }
+
+    @Test
+    void reusesCheckoutOfSameRemote(@TempDir File tempDir) throws Exception {
+        File remote = GitFixtures.createRepository(new File(tempDir, "remote"), "v1");
+        File checkout = new File(tempDir, "checkout");
+        PluginCompatTester.cloneImpl(GitFixtures.getUrl(remote), "v1", checkout, null, GitFetchStrategy.FULL, null);
+        Path marker = Files.createFile(checkout.toPath().resolve(".git/marker"));
+        Files.writeString(checkout.toPath().resolve("file.txt"), "modified", StandardCharsets.UTF_8);
+        Files.createFile(checkout.toPath().resolve("untracked.txt"));
+        Files.createDirectories(checkout.toPath().resolve("target/classes"));
+
+        GitFixtures.commit(remote, "v2");
+        PluginCompatTester.cloneImpl(GitFixtures.getUrl(remote), "v2", checkout, null, GitFetchStrategy.FULL, null);
+        assertTrue(Files.exists(marker));
+        assertEquals("v2", Files.readString(checkout.toPath().resolve("file.txt"), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(checkout.toPath().resolve("untracked.txt")));
+        assertFalse(Files.exists(checkout.toPath().resolve("target")));
+    }
+
+    @Test
+    void reclonesIncompatibleCheckout(@TempDir File tempDir) throws Exception {
+        File remote = GitFixtures.createRepository(new File(tempDir, "remote"), "v1");
+        File fork = GitFixtures.createRepository(new File(tempDir, "fork"), "v1");
+        File checkout = new File(tempDir, "checkout");
+        PluginCompatTester.cloneImpl(GitFixtures.getUrl(remote), "v1", checkout, null, GitFetchStrategy.FULL, null);
+        Path marker = Files.createFile(checkout.toPath().resolve(".git/marker"));
+
+        // A different remote
+        PluginCompatTester.cloneImpl(GitFixtures.getUrl(fork), "v1", checkout, null, GitFetchStrategy.FULL, null);
+        assertFalse(Files.exists(marker));
+
+        // A different object store
+        Files.createFile(marker);
+        GitObjectCache cache = new GitObjectCache(new File(tempDir, "cache"), null, 0);
+        PluginCompatTester.cloneImpl(GitFixtures.getUrl(fork), "v1", checkout, cache, GitFetchStrategy.FULL, null);
+        assertFalse(Files.exists(marker));
+        assertTrue(Files.exists(checkout.toPath().resolve(".git/objects/info/alternates")));
+    }
+
+    @Test
+    void shallowClone(@TempDir File tempDir) throws Exception {
+        File remote = GitFixtures.createRepository(new File(tempDir, "remote"), "v1");
+        GitFixtures.commit(remote, "v2");
+        File checkout = new File(tempDir, "checkout");
+        PluginCompatTester.cloneImpl(GitFixtures.getUrl(remote), "v2", checkout, null, GitFetchStrategy.SHALLOW, null);
+        assertEquals("v2", Files.readString(checkout.toPath().resolve("file.txt"), StandardCharsets.UTF_8));
+        assertTrue(Files.exists(checkout.toPath().resolve(".git/shallow")));
+    }
+
+    @Test
+    void bloblessSparseClone(@TempDir File tempDir) throws Exception {
+        File remote = new File(tempDir, "remote");
+        SparseCheckoutTest.createReactor(remote);
+        GitFixtures.createRepository(remote, "v1");
+        PluginCompatTester.runCommand(remote, "git", "config", "uploadpack.allowFilter", "true");
+        File checkout = new File(tempDir, "checkout");
+        PluginCompatTester.cloneImpl(
+                GitFixtures.getUrl(remote), "v1", checkout, null, GitFetchStrategy.BLOBLESS, Set.of("a"));
+
+        Path root = checkout.toPath();
+        assertTrue(Files.exists(root.resolve("file.txt")));
+        for (String module : new String[] {"a", "b", "c", "c/x", "c/y"}) {
+            assertTrue(Files.exists(root.resolve(module).resolve("pom.xml")), module);
+        }
+        assertTrue(Files.exists(root.resolve("a/src/main/java/Source.java")));
+        assertTrue(Files.exists(root.resolve("c/x/src/main/java/Source.java")));
+        assertFalse(Files.exists(root.resolve("b/src")));
+        assertFalse(Files.exists(root.resolve("c/y/src")));
+        assertEquals(
+                "true", PluginCompatTester.runCommand(checkout, "git", "config", "--get", "remote.origin.promisor"));
+
+        // Reused with the same layout
+        Path marker = Files.createFile(root.resolve(".git/marker"));
+        PluginCompatTester.cloneImpl(
+                GitFixtures.getUrl(remote), "v1", checkout, null, GitFetchStrategy.BLOBLESS, Set.of("b"));
+        assertTrue(Files.exists(marker));
+        assertTrue(Files.exists(root.resolve("b/src/main/java/Source.java")));
+        assertFalse(Files.exists(root.resolve("a/src")));
+    }
+
+    @Test
+    void skipsPluginsThatPassed() {
+        List<PluginResult> previous = List.of(
+                result(plugin("same", "1.0", "abc"), "2.400", PluginResult.Status.PASSED),
+                result(plugin("version", "1.0", "abc"), "2.400", PluginResult.Status.PASSED),
+                result(plugin("hash", "1.0", "abc"), "2.400", PluginResult.Status.PASSED),
+                result(plugin("core", "1.0", "abc"), "2.399", PluginResult.Status.PASSED),
+                result(plugin("failed", "1.0", "abc"), "2.400", PluginResult.Status.FAILED),
+                result(plugin("other", "1.0", "abc"), "2.400", PluginResult.Status.PASSED));
+        Map<String, PluginResult> passed = PluginCompatTester.getPassed(previous, "2.400");
+        assertEquals(Set.of("same", "version", "hash", "other"), passed.keySet());
+
+        NavigableMap<String, List<Plugin>> pluginsByRepository = new TreeMap<>();
+        pluginsByRepository.put("a", List.of(plugin("same", "1.0", "abc"), plugin("version", "1.1", "abc")));
+        pluginsByRepository.put("b", List.of(plugin("hash", "1.0", "def"), plugin("core", "1.0", "abc")));
+        pluginsByRepository.put("c", List.of(plugin("failed", "1.0", "abc"), plugin("new", "1.0", "abc")));
+        pluginsByRepository.put("d", List.of(plugin("other", "1.0", "abc")));
+        List<PluginResult> resumed = new ArrayList<>();
+
+        NavigableMap<String, List<Plugin>> remaining =
+                PluginCompatTester.withoutPassed(pluginsByRepository, passed, resumed);
+
+        assertEquals(Set.of("a", "b", "c"), remaining.keySet());
+        assertEquals(List.of("version"), pluginIds(remaining.get("a")));
+        assertEquals(List.of("hash", "core"), pluginIds(remaining.get("b")));
+        assertEquals(List.of("failed", "new"), pluginIds(remaining.get("c")));
+        assertEquals(2, resumed.size());
+        assertEquals(Set.of(passed.get("same"), passed.get("other")), Set.copyOf(resumed));
+    }
+
+    private static Plugin plugin(String pluginId, String version, String gitHash) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withVersion(version)
+                .withGitUrl("https://example.com/" + pluginId + ".git")
+                .withGitHash(gitHash)
+                .build();
+    }
+
+    private static PluginResult result(Plugin plugin, String coreVersion, PluginResult.Status status) {
+        return new PluginResult.Builder()
+                .withPlugin(plugin)
+                .withCoreVersion(coreVersion)
+                .withStatus(status)
+                .build();
+    }
+
+    private static List<String> pluginIds(List<Plugin> plugins) {
+        List<String> result = new ArrayList<>();
+        for (Plugin plugin : plugins) {
+            result.add(plugin.getPluginId());
+        }
+        return result;
+    }
 }
@@ -0,0 +1,85 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PluginConsoleTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void statusLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PluginConsole console = new PluginConsole(new PrintStream(out, true, StandardCharsets.UTF_8), true, false);
+        File log = new File(tempDir, "failing.log");
+        Files.writeString(log.toPath(), "[ERROR] BUILD FAILURE\n", StandardCharsets.UTF_8);
+
+        console.started(plugin("passing"), "2.400");
+        console.finished(result("passing", PluginResult.Status.PASSED, null));
+        console.finished(result("failing", PluginResult.Status.FAILED, log));
+
+        assertThat(
+                out.toString(StandardCharsets.UTF_8),
+                is("TESTING passing 1.0 against core version 2.400" + NL
+                        + "PASSED  passing 1.0 in 2.5 s" + NL
+                        + "FAILED  failing 1.0 in 2.5 s at test (" + log + ")" + NL));
+    }
+
+    @Test
+    void dumpsFailedLogs() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PluginConsole console = new PluginConsole(new PrintStream(out, true, StandardCharsets.UTF_8), false, true);
+        File passingLog = new File(tempDir, "passing.log");
+        Files.writeString(passingLog.toPath(), "[INFO] BUILD SUCCESS\n", StandardCharsets.UTF_8);
+        File failingLog = new File(tempDir, "failing.log");
+        Files.writeString(failingLog.toPath(), "[ERROR] BUILD FAILURE", StandardCharsets.UTF_8);
+
+        console.started(plugin("failing"), "2.400");
+        console.finished(result("passing", PluginResult.Status.PASSED, passingLog));
+        console.finished(result("failing", PluginResult.Status.FAILED, failingLog));
+        // Failed before any build was started
+        console.finished(result("unbuilt", PluginResult.Status.FAILED, null));
+
+        assertThat(
+                out.toString(StandardCharsets.UTF_8),
+                is("======== Build log of failing 1.0 ========" + NL
+                        + "[ERROR] BUILD FAILURE" + NL
+                        + "======== End of build log of failing ========" + NL));
+    }
+
+    private static PluginResult result(String pluginId, PluginResult.Status status, File log) {
+        PluginResult.Builder builder = new PluginResult.Builder()
+                .withPlugin(plugin(pluginId))
+                .withCoreVersion("2.400")
+                .withStatus(status)
+                .withStage(PluginResult.Stage.TEST)
+                .withDuration(PluginResult.Stage.COMPILE, Duration.ofMillis(1000))
+                .withDuration(PluginResult.Stage.TEST, Duration.ofMillis(1500));
+        if (log != null) {
+            builder.withLog(log);
+        }
+        return builder.build();
+    }
+
+    private static Plugin plugin(String pluginId) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://example.com/" + pluginId + ".git")
+                .build();
+    }
+}
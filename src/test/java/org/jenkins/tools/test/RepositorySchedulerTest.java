@@ -0,0 +1,160 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.junit.jupiter.api.Test;
+
+class RepositorySchedulerTest {
+
+    @Test
+    void runsUnitsConcurrently() throws Exception {
+        RepositoryScheduler scheduler = new RepositoryScheduler(2, true);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<RepositoryScheduler.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            tasks.add(() -> {
+                bothStarted.countDown();
+                try {
+                    // Only succeeds if the other unit is running at the same time
+                    assertTrue(bothStarted.await(30, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new PluginCompatibilityTesterException(e);
+                }
+            });
+        }
+        scheduler.run(tasks);
+    }
+
+    @Test
+    void aggregatesFailuresWithoutFailFast() throws Exception {
+        RepositoryScheduler scheduler = new RepositoryScheduler(4, false);
+        AtomicInteger completed = new AtomicInteger();
+        List<RepositoryScheduler.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int index = i;
+            tasks.add(() -> {
+                if (index % 2 == 0) {
+                    scheduler.recordFailure(new PluginCompatibilityTesterException("failure " + index));
+                }
+                completed.incrementAndGet();
+            });
+        }
+        PluginCompatibilityTesterException e =
+                assertThrows(PluginCompatibilityTesterException.class, () -> scheduler.run(tasks));
+        assertEquals(8, completed.get());
+        // Each failure carries the previous one as a suppressed exception
+        int failures = 1;
+        Throwable current = e;
+        while (current.getSuppressed().length > 0) {
+            assertThat(current.getSuppressed(), arrayWithSize(1));
+            current = current.getSuppressed()[0];
+            failures++;
+        }
+        assertThat(failures, is(4));
+    }
+
+    @Test
+    void failFastCancelsInFlightWork() throws Exception {
+        RepositoryScheduler scheduler = new RepositoryScheduler(2, true);
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        PluginCompatibilityTesterException failure = new PluginCompatibilityTesterException("boom");
+        List<RepositoryScheduler.Task> tasks = List.of(
+                () -> {
+                    blockerStarted.countDown();
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(5));
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                    }
+                },
+                () -> {
+                    try {
+                        blockerStarted.await();
+                    } catch (InterruptedException e) {
+                        throw new PluginCompatibilityTesterException(e);
+                    }
+                    scheduler.recordFailure(failure);
+                });
+        PluginCompatibilityTesterException e =
+                assertThrows(PluginCompatibilityTesterException.class, () -> scheduler.run(tasks));
+        assertSame(failure, e);
+        assertTrue(interrupted.get(), "in-flight work should have been interrupted");
+    }
+
+    @Test
+    void prefetchOverlapsPreparationWithRuns() throws Exception {
+        RepositoryScheduler scheduler = new RepositoryScheduler(1, 2, true);
+        CountDownLatch secondPrepared = new CountDownLatch(1);
+        AtomicInteger waiting = new AtomicInteger();
+        AtomicInteger maxWaiting = new AtomicInteger();
+        List<RepositoryScheduler.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int index = i;
+            tasks.add(new RepositoryScheduler.Task() {
+                @Override
+                public void prepare() {
+                    maxWaiting.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+                    if (index == 1) {
+                        secondPrepared.countDown();
+                    }
+                }
+
+                @Override
+                public void run() throws PluginCompatibilityTesterException {
+                    waiting.decrementAndGet();
+                    try {
+                        if (index == 0) {
+                            // The clone stage must not wait for the build stage
+                            assertTrue(secondPrepared.await(30, TimeUnit.SECONDS));
+                        }
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        throw new PluginCompatibilityTesterException(e);
+                    }
+                }
+            });
+        }
+        scheduler.run(tasks);
+        // The build stage releases a permit just before it runs a unit, so allow for one unit per build worker that has
+        // been handed over but not yet observed as running
+        assertThat(maxWaiting.get(), lessThanOrEqualTo(2 + 1));
+    }
+
+    @Test
+    void prefetchFailureIsReported() throws Exception {
+        RepositoryScheduler scheduler = new RepositoryScheduler(2, 1, true);
+        PluginCompatibilityTesterException failure = new PluginCompatibilityTesterException("clone failed");
+        AtomicBoolean ran = new AtomicBoolean();
+        RepositoryScheduler.Task task = new RepositoryScheduler.Task() {
+            @Override
+            public void prepare() throws PluginCompatibilityTesterException {
+                scheduler.recordFailure(failure);
+            }
+
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        };
+        PluginCompatibilityTesterException e =
+                assertThrows(PluginCompatibilityTesterException.class, () -> scheduler.run(List.of(task)));
+        assertSame(failure, e);
+        assertFalse(ran.get(), "a unit that failed to prepare must not run");
+    }
+}
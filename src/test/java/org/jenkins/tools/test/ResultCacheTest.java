@@ -0,0 +1,132 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultCacheTest {
+
+    private static final Map<String, Long> ARCHIVES =
+            Map.of("WEB-INF/lib/jenkins-core-2.400.jar", 0x1234L, "WEB-INF/plugins/foo.hpi", 0x5678L);
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void roundTrip() throws Exception {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File("jenkins.war"), tempDir);
+        ResultCache cache = new ResultCache(tempDir, "2.400", ARCHIVES, List.of("a.Hook"), config);
+        Plugin foo = plugin("foo", "abc");
+        assertThat(cache.get(foo, "2.400"), is(nullValue()));
+
+        assertThat(
+                cache.put(new PluginResult.Builder()
+                        .withPlugin(foo)
+                        .withCoreVersion("2.400")
+                        .withStatus(PluginResult.Status.PASSED)
+                        .withStage(PluginResult.Stage.TEST)
+                        .withDuration(PluginResult.Stage.TEST, Duration.ofSeconds(10))
+                        .withLog(new File("logs/foo.log"))
+                        .build()),
+                is(true));
+        PluginResult cached = new ResultCache(tempDir, "2.400", ARCHIVES, List.of("a.Hook"), config).get(foo, "2.400");
+        assertThat(cached.isCached(), is(true));
+        assertThat(cached.getStatus(), is(PluginResult.Status.PASSED));
+        assertThat(cached.getStage(), is(PluginResult.Stage.TEST));
+        assertThat(cached.getLog(), is(new File("logs/foo.log")));
+        // No time was spent on it in this run
+        assertThat(cached.getDurations(), is(anEmptyMap()));
+        // A cached result is not cached again
+        assertThat(cache.put(cached), is(false));
+
+        // Any change to the inputs misses
+        assertThat(cache.get(plugin("foo", "def"), "2.400"), is(nullValue()));
+        assertThat(
+                new ResultCache(tempDir, "2.401", ARCHIVES, List.of("a.Hook"), config).get(foo, "2.401"),
+                is(nullValue()));
+        assertThat(
+                new ResultCache(tempDir, "2.400", Map.of("WEB-INF/plugins/foo.hpi", 0x5678L), List.of("a.Hook"), config)
+                        .get(foo, "2.400"),
+                is(nullValue()));
+        assertThat(new ResultCache(tempDir, "2.400", ARCHIVES, List.of(), config).get(foo, "2.400"), is(nullValue()));
+        PluginCompatTesterConfig other = new PluginCompatTesterConfig(new File("jenkins.war"), tempDir);
+        other.setMavenArgs(List.of("-Pquick-build"));
+        assertThat(
+                new ResultCache(tempDir, "2.400", ARCHIVES, List.of("a.Hook"), other).get(foo, "2.400"),
+                is(nullValue()));
+        File settings = new File(tempDir, "settings.xml");
+        Files.writeString(settings.toPath(), "<settings/>", StandardCharsets.UTF_8);
+        PluginCompatTesterConfig withSettings = new PluginCompatTesterConfig(new File("jenkins.war"), tempDir);
+        withSettings.setMavenSettings(settings);
+        ResultCache settingsCache = new ResultCache(tempDir, "2.400", ARCHIVES, List.of("a.Hook"), withSettings);
+        assertThat(settingsCache.getKey(foo), is(not(cache.getKey(foo))));
+        String key = settingsCache.getKey(foo);
+        Files.writeString(settings.toPath(), "<settings><offline>true</offline></settings>", StandardCharsets.UTF_8);
+        assertThat(
+                new ResultCache(tempDir, "2.400", ARCHIVES, List.of("a.Hook"), withSettings).getKey(foo), is(not(key)));
+    }
+
+    @Test
+    void onlyCachesResultsOfThePlugin() throws Exception {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File("jenkins.war"), tempDir);
+        ResultCache cache = new ResultCache(tempDir, "2.400", ARCHIVES, List.of(), config);
+        // A failure may come from the environment, such as a build interrupted by fail fast
+        assertThat(
+                cache.put(new PluginResult.Builder()
+                        .withPlugin(plugin("foo", "abc"))
+                        .withCoreVersion("2.400")
+                        .withStatus(PluginResult.Status.FAILED)
+                        .withStage(PluginResult.Stage.TEST)
+                        .withException("mvn test was interrupted")
+                        .build()),
+                is(false));
+        assertThat(
+                cache.put(new PluginResult.Builder()
+                        .withPlugin(plugin("foo", "abc"))
+                        .withCoreVersion("2.400")
+                        .withStatus(PluginResult.Status.FAILED)
+                        .withStage(PluginResult.Stage.CLONE)
+                        .build()),
+                is(false));
+        assertThat(
+                cache.put(new PluginResult.Builder()
+                        .withPlugin(plugin("foo", "abc"))
+                        .withCoreVersion("2.400")
+                        .withStatus(PluginResult.Status.SKIPPED)
+                        .build()),
+                is(false));
+        // The commit is unknown
+        assertThat(
+                cache.put(new PluginResult.Builder()
+                        .withPlugin(plugin("foo", null))
+                        .withCoreVersion("2.400")
+                        .withStatus(PluginResult.Status.PASSED)
+                        .withStage(PluginResult.Stage.TEST)
+                        .build()),
+                is(false));
+        assertThat(cache.getKey(plugin("foo", "abc")), is(not(cache.getKey(plugin("bar", "abc")))));
+    }
+
+    private static Plugin plugin(String pluginId, String gitHash) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://example.com/" + pluginId + ".git")
+                .withGitHash(gitHash)
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.model.PluginResult;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RunReportTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void streamsJsonAndWritesJUnit() throws Exception {
+        File jsonFile = new File(tempDir, RunReport.JSON_REPORT);
+        RunReport report = new RunReport(tempDir);
+        report.add(new PluginResult.Builder()
+                .withPlugin(plugin("passing"))
+                .withCoreVersion("2.400")
+                .withStatus(PluginResult.Status.PASSED)
+                .withStage(PluginResult.Stage.TEST)
+                .withDuration(PluginResult.Stage.CLONE, Duration.ofMillis(1500))
+                .withDuration(PluginResult.Stage.COMPILE, Duration.ofMillis(2000))
+                .withDuration(PluginResult.Stage.TEST, Duration.ofMillis(3000))
+                .withLog(new File("logs/passing.log"))
+                .build());
+        // Available before the run ends
+        assertThat(
+                Files.readAllLines(jsonFile.toPath(), StandardCharsets.UTF_8),
+                is(List.of(
+                        "{\"pluginId\":\"passing\",\"version\":\"1.0\",\"gitUrl\":\"https://example.com/passing.git\","
+                                + "\"gitHash\":\"abc\",\"module\":null,\"coreVersion\":\"2.400\",\"status\":\"PASSED\","
+                                + "\"stage\":\"test\",\"durations\":{\"clone\":1500,\"compile\":2000,\"test\":3000},"
+                                + "\"exception\":null,\"log\":\"logs" + File.separator
+                                + "passing.log\",\"cached\":false}")));
+
+        PluginResult.Builder failing = new PluginResult.Builder()
+                .withPlugin(plugin("failing"))
+                .withCoreVersion("2.400")
+                .withStatus(PluginResult.Status.FAILED)
+                .withStage(PluginResult.Stage.COMPILE)
+                .withException(new PluginCompatibilityTesterException("Build \"failed\"\n\tat line 1"));
+        report.add(failing.build());
+        // Only the first result of a plugin counts
+        report.add(failing.withStatus(PluginResult.Status.SKIPPED).build());
+        report.add(new PluginResult.Builder()
+                .withPlugin(plugin("skipped"))
+                .withCoreVersion("2.400")
+                .withStatus(PluginResult.Status.SKIPPED)
+                .build());
+        report.close();
+
+        List<String> lines = Files.readAllLines(jsonFile.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines.size(), is(3));
+        assertThat(
+                lines.get(1),
+                containsString("\"status\":\"FAILED\",\"stage\":\"compile\",\"durations\":{},\"exception\":"
+                        + "\"org.jenkins.tools.test.exception.PluginCompatibilityTesterException: "
+                        + "Build \\\"failed\\\"\\n\\tat line 1\",\"log\":null,\"cached\":false}"));
+
+        String junit = Files.readString(new File(tempDir, RunReport.JUNIT_REPORT).toPath(), StandardCharsets.UTF_8);
+        assertThat(junit, containsString("tests=\"3\" failures=\"1\" skipped=\"1\" time=\"6.500\""));
+        assertThat(
+                junit,
+                containsString("<testcase classname=\"https://example.com/passing.git\" name=\"passing 1.0\""
+                        + " time=\"6.500\">"));
+        assertThat(junit, containsString("<failure message=\"Failed in stage compile\">"));
+        assertThat(junit, containsString("<skipped/>"));
+    }
+
+    @Test
+    void loadsPreviousReport() throws Exception {
+        RunReport report = new RunReport(tempDir);
+        report.add(new PluginResult.Builder()
+                .withPlugin(plugin("passing"))
+                .withCoreVersion("2.400")
+                .withStatus(PluginResult.Status.PASSED)
+                .withStage(PluginResult.Stage.TEST)
+                .withDuration(PluginResult.Stage.CLONE, Duration.ofMillis(1500))
+                .withDuration(PluginResult.Stage.TEST, Duration.ofMillis(3000))
+                .withLog(new File("logs/passing.log"))
+                .withCached(true)
+                .build());
+        report.add(new PluginResult.Builder()
+                .withPlugin(plugin("failing"))
+                .withCoreVersion("2.400")
+                .withStatus(PluginResult.Status.FAILED)
+                .withStage(PluginResult.Stage.COMPILE)
+                .withException("Build \"failed\"\n\tat line 1 \u00e9\u0001")
+                .build());
+        report.close();
+        File jsonFile = new File(tempDir, RunReport.JSON_REPORT);
+        // As if a writer that does not replace the file atomically had crashed in the middle of a line
+        Files.writeString(
+                jsonFile.toPath(), "{\"pluginId\":\"trunc", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<PluginResult> results = RunReport.load(jsonFile);
+        assertThat(results.size(), is(2));
+        PluginResult passing = results.get(0);
+        assertThat(passing.getPlugin().getPluginId(), is("passing"));
+        assertThat(passing.getPlugin().getVersion(), is("1.0"));
+        assertThat(passing.getPlugin().getGitUrl(), is("https://example.com/passing.git"));
+        assertThat(passing.getPlugin().getGitHash(), is("abc"));
+        assertThat(passing.getPlugin().getModule(), is(nullValue()));
+        assertThat(passing.getCoreVersion(), is("2.400"));
+        assertThat(passing.getStatus(), is(PluginResult.Status.PASSED));
+        assertThat(passing.getStage(), is(PluginResult.Stage.TEST));
+        assertThat(
+                passing.getDurations(),
+                is(Map.of(
+                        PluginResult.Stage.CLONE,
+                        Duration.ofMillis(1500),
+                        PluginResult.Stage.TEST,
+                        Duration.ofMillis(3000))));
+        assertThat(passing.getLog(), is(new File("logs/passing.log")));
+        assertThat(passing.isCached(), is(true));
+        PluginResult failing = results.get(1);
+        assertThat(failing.getStatus(), is(PluginResult.Status.FAILED));
+        assertThat(failing.getStage(), is(PluginResult.Stage.COMPILE));
+        assertThat(failing.getException(), is("Build \"failed\"\n\tat line 1 \u00e9\u0001"));
+        assertThat(failing.getLog(), is(nullValue()));
+        assertThat(
+                RunReport.toJson(failing),
+                is(Files.readAllLines(jsonFile.toPath(), StandardCharsets.UTF_8).get(1)));
+    }
+
+    private static Plugin plugin(String pluginId) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://example.com/" + pluginId + ".git")
+                .withGitHash("abc")
+                .build();
+    }
+}
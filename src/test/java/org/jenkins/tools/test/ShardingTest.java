@@ -0,0 +1,80 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardingTest {
+
+    @Test
+    void partitionsRepositoriesByPluginCount() {
+        // Repositories with 5, 4, 3, 2, 1, and 1 plugins
+        NavigableMap<String, List<Plugin>> repositories = repositories(5, 4, 3, 2, 1, 1);
+
+        NavigableMap<String, List<Plugin>> first = Sharding.select(repositories, 0, 2, null);
+        NavigableMap<String, List<Plugin>> second = Sharding.select(repositories, 1, 2, null);
+        assertThat(first.keySet(), is(Set.of("repo-0", "repo-3", "repo-4")));
+        assertThat(second.keySet(), is(Set.of("repo-1", "repo-2", "repo-5")));
+        assertThat(Sharding.select(repositories, 1, 2, null), is(second));
+
+        // Every repository is in exactly one shard
+        Set<String> all = new TreeSet<>();
+        for (int i = 0; i < 4; i++) {
+            for (String gitUrl : Sharding.select(repositories, i, 4, null).keySet()) {
+                assertThat(all.add(gitUrl), is(true));
+            }
+        }
+        assertThat(all, is(repositories.keySet()));
+        assertThat(Sharding.select(repositories, 0, 1, null), is(repositories));
+        assertThrows(IllegalArgumentException.class, () -> Sharding.select(repositories, 2, 2, null));
+    }
+
+    @Test
+    void partitionsRepositoriesByDuration(@TempDir File tempDir) throws Exception {
+        NavigableMap<String, List<Plugin>> repositories = repositories(3, 1, 1);
+        File timingFile = new File(tempDir, "timings.tsv");
+        // repo-1 is slow; the plugins of repo-0 are quick; repo-2 has no history
+        Files.writeString(
+                timingFile.toPath(),
+                "# plugin\tstage\tmillis\n"
+                        + "repo-0-plugin-0\tbuild\t1000\n"
+                        + "repo-0-plugin-1\tbuild\t1000\n"
+                        + "repo-0-plugin-2\tbuild\t1000\n"
+                        + "repo-1-plugin-0\tclone\t2000\n"
+                        + "repo-1-plugin-0\tbuild\t8000\n",
+                StandardCharsets.UTF_8);
+        TimingHistory history = TimingHistory.load(timingFile);
+
+        assertThat(Sharding.select(repositories, 0, 2, history).keySet(), is(Set.of("repo-1")));
+        assertThat(Sharding.select(repositories, 1, 2, history).keySet(), is(Set.of("repo-0", "repo-2")));
+    }
+
+    private static NavigableMap<String, List<Plugin>> repositories(int... pluginCounts) {
+        NavigableMap<String, List<Plugin>> result = new TreeMap<>();
+        for (int i = 0; i < pluginCounts.length; i++) {
+            List<Plugin> plugins = new ArrayList<>();
+            for (int j = 0; j < pluginCounts[i]; j++) {
+                plugins.add(new Plugin.Builder()
+                        .withPluginId("repo-" + i + "-plugin-" + j)
+                        .withVersion("1.0")
+                        .withGitUrl("repo-" + i)
+                        .build());
+            }
+            result.put("repo-" + i, plugins);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SparseCheckoutTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void excludesModulesThatAreNotNeeded() throws Exception {
+        createReactor(tempDir);
+        assertThat(
+                SparseCheckout.getPatterns(tempDir, Set.of("a")),
+                contains("/*", "!/b/", "/b/**/pom.xml", "!/c/y/", "/c/y/**/pom.xml"));
+        assertThat(
+                SparseCheckout.getPatterns(tempDir, Set.of(":a")),
+                contains("/*", "!/b/", "/b/**/pom.xml", "!/c/y/", "/c/y/**/pom.xml"));
+        assertThat(SparseCheckout.getPatterns(tempDir, Set.of("b", "c/y")), contains("/*", "!/a/", "/a/**/pom.xml"));
+        assertThat(SparseCheckout.getPatterns(tempDir, Set.of("missing")), nullValue());
+    }
+
+    /**
+     * A reactor with modules {@code a}, {@code b}, and {@code c}, the latter aggregating {@code c/x} and {@code c/y};
+     * {@code a} depends on {@code c/x}, and {@code b} on {@code c/x}.
+     */
+    static void createReactor(File root) throws Exception {
+        writePom(root, "root", "<modules><module>a</module><module>b</module><module>c</module></modules>");
+        writePom(new File(root, "a"), "a", dependency("x"));
+        writePom(new File(root, "b"), "b", dependency("x"));
+        writePom(new File(root, "c"), "c", "<modules><module>x</module><module>y/pom.xml</module></modules>");
+        writePom(new File(root, "c/x"), "x", "");
+        writePom(new File(root, "c/y"), "y", "");
+        for (String module : new String[] {"a", "b", "c/x", "c/y"}) {
+            Path source = root.toPath().resolve(module).resolve("src/main/java/Source.java");
+            Files.createDirectories(source.getParent());
+            Files.writeString(source, "class Source {}", StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String dependency(String artifactId) {
+        return "<dependencies><dependency><groupId>${project.groupId}</groupId><artifactId>" + artifactId
+                + "</artifactId></dependency></dependencies>";
+    }
+
+    private static void writePom(File dir, String artifactId, String body) throws Exception {
+        Files.createDirectories(dir.toPath());
+        Files.writeString(
+                dir.toPath().resolve("pom.xml"),
+                "<project><modelVersion>4.0.0</modelVersion><groupId>example</groupId><artifactId>" + artifactId
+                        + "</artifactId><version>1</version>" + body + "</project>",
+                StandardCharsets.UTF_8);
+    }
+}
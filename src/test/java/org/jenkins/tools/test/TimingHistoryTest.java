@@ -0,0 +1,71 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TimingHistoryTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void recordsAndMergesDurations() throws Exception {
+        File file = new File(tempDir, "timings.tsv");
+        Files.writeString(
+                file.toPath(),
+                "first\tclone\t100\nfirst\tbuild\t900\nsecond\ttest\t5000\nmalformed line\n",
+                StandardCharsets.UTF_8);
+
+        TimingHistory history = TimingHistory.load(file);
+        assertThat(history.getDuration("first"), is(Duration.ofSeconds(1)));
+        assertThat(history.getDuration("third"), nullValue());
+
+        history.record("first", "clone", Duration.ofMillis(200));
+        history.record("first", "compile", Duration.ofMillis(300));
+        history.record("first", "compile", Duration.ofMillis(100));
+        history.record("third", "test", Duration.ofMillis(700));
+        // Recorded durations only take effect once saved
+        assertThat(history.getDuration("first"), is(Duration.ofSeconds(1)));
+        history.save(file);
+
+        TimingHistory saved = TimingHistory.load(file);
+        // All stages of a recorded plugin are replaced
+        assertThat(saved.getDuration("first"), is(Duration.ofMillis(600)));
+        assertThat(saved.getDuration("second"), is(Duration.ofSeconds(5)));
+        assertThat(saved.getDuration("third"), is(Duration.ofMillis(700)));
+        assertThat(
+                Files.readAllLines(file.toPath(), StandardCharsets.UTF_8),
+                is(List.of(
+                        "# plugin\tstage\tmillis",
+                        "first\tclone\t200",
+                        "first\tcompile\t400",
+                        "second\ttest\t5000",
+                        "third\ttest\t700")));
+    }
+
+    @Test
+    void estimatesRepositoriesWithoutHistory() {
+        Map<String, Duration> estimates = new TimingHistory()
+                .estimate(Map.of("a", List.of(plugin("a1"), plugin("a2")), "b", List.of(plugin("b1"))));
+        assertThat(estimates, is(Map.of("a", Duration.ofSeconds(2), "b", Duration.ofSeconds(1))));
+    }
+
+    private static Plugin plugin(String pluginId) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://example.com/" + pluginId + ".git")
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BuildLogTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void compressesEachInvocation() throws Exception {
+        BuildLog buildLog = new BuildLog(true, 0);
+        File log = new File(tempDir, "build.log.gz");
+        String compile = "[INFO] Compiling\n".repeat(10_000);
+        String test = "[INFO] Tests run: 1\n".repeat(10_000);
+        write(buildLog, log, compile);
+        write(buildLog, log, test);
+
+        assertThat(log.length(), lessThan((long) (compile.length() + test.length()) / 100));
+        assertThat(read(log), is(compile + test));
+    }
+
+    @Test
+    void readsPlainLogs() throws Exception {
+        File log = new File(tempDir, "build.log");
+        write(BuildLog.PLAIN, log, "a\n");
+        write(BuildLog.PLAIN, log, "b\n");
+
+        assertThat(Files.readString(log.toPath(), StandardCharsets.UTF_8), is("a\nb\n"));
+        assertThat(read(log), is("a\nb\n"));
+    }
+
+    @Test
+    void keepsHeadAndTail() throws Exception {
+        BuildLog buildLog = new BuildLog(false, 40);
+        File log = new File(tempDir, "build.log");
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            output.append("line ").append(i).append('\n');
+        }
+        try (OutputStream os = buildLog.open(log)) {
+            // In writes of every size, including larger than the tail
+            byte[] bytes = output.toString().getBytes(StandardCharsets.UTF_8);
+            int off = 0;
+            for (int len = 1; off < bytes.length; len = len * 2 % 97 + 1) {
+                int n = Math.min(len, bytes.length - off);
+                os.write(bytes, off, n);
+                off += n;
+            }
+        }
+
+        // The first 20 bytes, then the last 20 bytes from the first line boundary
+        assertThat(
+                read(log),
+                is("line 0\nline 1\nline 2\n"
+                        + "[... 754 bytes of output omitted from the build log ...]\n"
+                        + "line 98\nline 99\n"));
+        // Nothing else is written next to the build log
+        assertThat(tempDir.list(), is(new String[] {"build.log"}));
+    }
+
+    @Test
+    void keepsFixedSizeTail() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream os = new CappedOutputStream(out, 30, 10)) {
+            os.write("0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8));
+            os.write('!');
+        }
+        assertThat(
+                out.toString(StandardCharsets.UTF_8),
+                is("0123456789abcdefghij\n[... 7 bytes of output omitted from the build log ...]\nrstuvwxyz!"));
+
+        // Larger caps keep at most TAIL_SIZE bytes of the end
+        BuildLog buildLog = new BuildLog(true, 4L * BuildLog.TAIL_SIZE);
+        File log = new File(tempDir, "build.log.gz");
+        String line = "[INFO] Tests run: 1\n";
+        write(buildLog, log, line.repeat(8 * BuildLog.TAIL_SIZE / line.length()));
+        String output = read(log);
+        assertThat(output.length(), is(lessThanOrEqualTo(4 * BuildLog.TAIL_SIZE + 100)));
+        assertThat(output.substring(output.indexOf("...]\n") + 5).length(), is(lessThanOrEqualTo(BuildLog.TAIL_SIZE)));
+        assertThat(tempDir.list(), is(new String[] {"build.log.gz"}));
+    }
+
+    @Test
+    void keepsShortOutput() throws Exception {
+        BuildLog buildLog = new BuildLog(true, 40);
+        File log = new File(tempDir, "build.log.gz");
+        write(buildLog, log, "0123456789012345678901234567890123456789");
+        write(buildLog, log, "short");
+
+        assertThat(read(log), is("0123456789012345678901234567890123456789short"));
+    }
+
+    private static void write(BuildLog buildLog, File log, String output) throws Exception {
+        try (OutputStream os = buildLog.open(log)) {
+            os.write(output.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String read(File log) throws Exception {
+        try (InputStream is = BuildLog.read(log)) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jenkins.tools.test.exception.PomExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DaemonMavenRunnerTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void reusesWarmJvms() throws Exception {
+        try (DaemonMavenRunner runner = newRunner(1)) {
+            File log = new File(tempDir, "build.log");
+            runner.run(Map.of("foo", "bar"), tempDir, null, log, "verify");
+            runner.run(Map.of(), tempDir, "module", log, "verify");
+            List<String> lines = Files.readAllLines(log.toPath(), Charset.defaultCharset());
+            assertThat(pids(lines), hasSize(1));
+            assertThat(lines.toString(), containsString("-Dfoo=bar"));
+            assertThat(lines.toString(), containsString("-pl, module, verify"));
+            assertThat(lines.toString(), containsString("directory: " + tempDir.getAbsolutePath()));
+            // User properties from the first build do not leak into the second
+            assertThat(lines.get(lines.size() - 1), not(containsString("foo=bar")));
+        }
+    }
+
+    @Test
+    void reportsExitStatus() throws Exception {
+        try (DaemonMavenRunner runner = newRunner(1)) {
+            File log = new File(tempDir, "build.log");
+            PomExecutionException e =
+                    assertThrows(PomExecutionException.class, () -> runner.run(Map.of(), tempDir, null, log, "fail"));
+            assertThat(e.getMessage(), containsString("failed with exit status 3"));
+            // The JVM survives a failed build
+            runner.run(Map.of(), tempDir, null, log, "verify");
+            assertThat(pids(Files.readAllLines(log.toPath(), Charset.defaultCharset())), hasSize(1));
+        }
+    }
+
+    @Test
+    void replacesJvmThatExits() throws Exception {
+        try (DaemonMavenRunner runner = newRunner(1)) {
+            File log = new File(tempDir, "build.log");
+            PomExecutionException e =
+                    assertThrows(PomExecutionException.class, () -> runner.run(Map.of(), tempDir, null, log, "exit"));
+            assertThat(e.getMessage(), containsString("exited unexpectedly"));
+            runner.run(Map.of(), tempDir, null, log, "verify");
+            assertThat(pids(Files.readAllLines(log.toPath(), Charset.defaultCharset())), hasSize(2));
+        }
+    }
+
+    @Test
+    void runsConcurrentBuildsInSeparateJvms() throws Exception {
+        try (DaemonMavenRunner runner = newRunner(2)) {
+            List<Thread> threads = new ArrayList<>();
+            List<Throwable> failures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                File log = new File(tempDir, "build" + i + ".log");
+                Thread t = new Thread(() -> {
+                    try {
+                        runner.run(Map.of(), tempDir, null, log, "sleep");
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                });
+                t.start();
+                threads.add(t);
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            assertThat(failures, is(List.of()));
+            List<String> lines = new ArrayList<>();
+            lines.addAll(Files.readAllLines(new File(tempDir, "build0.log").toPath(), Charset.defaultCharset()));
+            lines.addAll(Files.readAllLines(new File(tempDir, "build1.log").toPath(), Charset.defaultCharset()));
+            assertThat(pids(lines), hasSize(2));
+        }
+    }
+
+    private static DaemonMavenRunner newRunner(int size) throws URISyntaxException {
+        // The fake CLI only depends on the JDK, so its own location is a sufficient classpath
+        File classes = new File(FakeMavenCli.class
+                .getProtectionDomain()
+                .getCodeSource()
+                .getLocation()
+                .toURI());
+        return new DaemonMavenRunner(
+                null, List.of(), null, List.of(classes), FakeMavenCli.class.getName(), size, true, BuildLog.PLAIN);
+    }
+
+    private static Set<String> pids(List<String> lines) {
+        Set<String> result = new TreeSet<>();
+        for (String line : lines) {
+            if (line.startsWith("pid: ")) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stands in for {@code org.apache.maven.cli.MavenCli} in the daemon JVM.
+     */
+    public static class FakeMavenCli {
+
+        public int doMain(String[] args, String workingDirectory, PrintStream stdout, PrintStream stderr)
+                throws InterruptedException {
+            stdout.println("pid: " + ProcessHandle.current().pid());
+            stdout.println("directory: " + workingDirectory);
+            stdout.println("args: " + List.of(args));
+            String goal = args[args.length - 1];
+            switch (goal) {
+                case "fail":
+                    return 3;
+                case "exit":
+                    System.exit(0);
+                    return 0;
+                case "sleep":
+                    Thread.sleep(500);
+                    break;
+                default:
+                    break;
+            }
+            for (String arg : args) {
+                if (arg.startsWith("-D")) {
+                    String[] property = arg.substring(2).split("=", 2);
+                    System.setProperty(property[0], property[1]);
+                }
+            }
+            // Deliberately no trailing newline
+            stdout.print("properties: foo=" + System.getProperty("foo"));
+            return 0;
+        }
+    }
+}
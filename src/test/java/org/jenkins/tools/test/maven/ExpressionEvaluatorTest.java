@@ -0,0 +1,191 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExpressionEvaluatorTest {
+
+    private static final String EFFECTIVE_POM = "<project>\n"
+            + "  <modelVersion>4.0.0</modelVersion>\n"
+            + "  <parent>\n"
+            + "    <groupId>org.jenkins-ci.plugins</groupId>\n"
+            + "    <artifactId>plugin</artifactId>\n"
+            + "    <version>4.51</version>\n"
+            + "  </parent>\n"
+            + "  <groupId>io.jenkins.plugins</groupId>\n"
+            + "  <artifactId>example</artifactId>\n"
+            + "  <version>1.2.3</version>\n"
+            + "  <packaging>hpi</packaging>\n"
+            + "  <modules>\n"
+            + "    <module>api</module>\n"
+            + "    <module>impl</module>\n"
+            + "  </modules>\n"
+            + "  <properties>\n"
+            + "    <hpi-plugin.version>3.38</hpi-plugin.version>\n"
+            + "  </properties>\n"
+            + "</project>\n";
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void resolvesManyExpressionsWithOneInvocation() throws Exception {
+        FakeMavenRunner runner = new FakeMavenRunner();
+        ExpressionEvaluator evaluator =
+                new ExpressionEvaluator(tempDir, null, runner, new ExpressionCache(), emptyRepository());
+        Map<String, String> values = evaluator.evaluateStrings(List.of(
+                "project.packaging",
+                "project.artifactId",
+                "project.version",
+                "project.parent.version",
+                "hpi-plugin.version"));
+        assertThat(values.get("project.packaging"), is("hpi"));
+        assertThat(values.get("project.artifactId"), is("example"));
+        assertThat(values.get("project.version"), is("1.2.3"));
+        assertThat(values.get("project.parent.version"), is("4.51"));
+        assertThat(values.get("hpi-plugin.version"), is("3.38"));
+        assertThat(evaluator.evaluateList("project.modules"), contains("api", "impl"));
+        assertThat(runner.goals, contains("help:effective-pom"));
+        assertThat(runner.args, hasItem("-N"));
+    }
+
+    @Test
+    void fallsBackToHelpEvaluate() throws Exception {
+        FakeMavenRunner runner = new FakeMavenRunner();
+        ExpressionEvaluator evaluator =
+                new ExpressionEvaluator(tempDir, "impl", runner, new ExpressionCache(), emptyRepository());
+        assertThat(evaluator.evaluateString("project.build.directory"), is("evaluated project.build.directory"));
+        assertThat(runner.goals, contains("help:effective-pom", "help:evaluate"));
+    }
+
+    @Test
+    void honorsUserProperties() throws Exception {
+        FakeMavenRunner runner = new FakeMavenRunner();
+        // An unsupported argument keeps the in-process resolver from answering
+        runner.mavenArgs = List.of("-Dhpi-plugin.version=3.40", "-Dunknown=${hpi-plugin.version}", "-o");
+        ExpressionEvaluator evaluator =
+                new ExpressionEvaluator(tempDir, null, runner, new ExpressionCache(), emptyRepository());
+        assertThat(evaluator.evaluateString("hpi-plugin.version"), is("3.40"));
+        assertThat(runner.goals, is(empty()));
+        assertThat(evaluator.evaluateString("project.version"), is("1.2.3"));
+        assertThat(evaluator.evaluateString("unknown"), is("evaluated unknown"));
+        assertThat(runner.goals, contains("help:effective-pom", "help:evaluate"));
+    }
+
+    @Test
+    void sharesResultsBetweenEvaluators() throws Exception {
+        FakeMavenRunner runner = new FakeMavenRunner();
+        ExpressionCache cache = new ExpressionCache();
+        File pom = new File(tempDir, "pom.xml");
+        Files.writeString(pom.toPath(), EFFECTIVE_POM, StandardCharsets.UTF_8);
+        assertThat(
+                new ExpressionEvaluator(tempDir, null, runner, cache, emptyRepository())
+                        .evaluateString("project.version"),
+                is("1.2.3"));
+        assertThat(
+                new ExpressionEvaluator(tempDir, null, runner, cache, emptyRepository())
+                        .evaluateString("project.version"),
+                is("1.2.3"));
+        assertThat(runner.goals, contains("help:effective-pom"));
+
+        // A changed POM is never answered from the cache
+        Files.writeString(pom.toPath(), EFFECTIVE_POM + "<!-- changed -->", StandardCharsets.UTF_8);
+        new ExpressionEvaluator(tempDir, null, runner, cache, emptyRepository()).evaluateString("project.version");
+        assertThat(runner.goals, contains("help:effective-pom", "help:effective-pom"));
+
+        // Nor is a module whose parent directory was invalidated
+        new ExpressionEvaluator(tempDir, "impl", runner, cache, emptyRepository()).evaluateString("project.version");
+        new ExpressionEvaluator(tempDir, "impl", runner, cache, emptyRepository()).evaluateString("project.version");
+        assertThat(runner.goals, hasSize(3));
+        cache.invalidate(tempDir);
+        new ExpressionEvaluator(tempDir, "impl", runner, cache, emptyRepository()).evaluateString("project.version");
+        assertThat(runner.goals, hasSize(4));
+    }
+
+    @Test
+    void fingerprintsRelativeParents() throws Exception {
+        FakeMavenRunner runner = new FakeMavenRunner();
+        ExpressionCache cache = new ExpressionCache();
+        File checkout = new File(tempDir, "checkout");
+        File parent = new File(tempDir, "parent/pom.xml");
+        Files.createDirectories(parent.toPath().getParent());
+        Files.createDirectories(checkout.toPath());
+        String parentPom = "<project><groupId>io.jenkins.plugins</groupId><artifactId>example-parent</artifactId>"
+                + "<version>1.0</version><packaging>pom</packaging></project>";
+        Files.writeString(parent.toPath(), parentPom, StandardCharsets.UTF_8);
+        Files.writeString(
+                new File(checkout, "pom.xml").toPath(),
+                "<project><parent><groupId>io.jenkins.plugins</groupId><artifactId>example-parent</artifactId>"
+                        + "<version>1.0</version><relativePath>../parent/pom.xml</relativePath></parent>"
+                        + "<artifactId>example</artifactId></project>",
+                StandardCharsets.UTF_8);
+        new ExpressionEvaluator(checkout, null, runner, cache, emptyRepository())
+                .evaluateString("project.build.directory");
+        new ExpressionEvaluator(checkout, null, runner, cache, emptyRepository())
+                .evaluateString("project.build.directory");
+        assertThat(runner.goals, contains("help:effective-pom", "help:evaluate"));
+
+        // A parent outside the checkout may change the result as well
+        Files.writeString(parent.toPath(), parentPom + "<!-- changed -->", StandardCharsets.UTF_8);
+        new ExpressionEvaluator(checkout, null, runner, cache, emptyRepository())
+                .evaluateString("project.build.directory");
+        assertThat(
+                runner.goals, contains("help:effective-pom", "help:evaluate", "help:effective-pom", "help:evaluate"));
+    }
+
+    private File emptyRepository() {
+        return new File(tempDir, "repository");
+    }
+
+    private static class FakeMavenRunner implements MavenRunner {
+
+        final List<String> goals = new ArrayList<>();
+
+        final List<String> args = new ArrayList<>();
+
+        List<String> mavenArgs = List.of();
+
+        @Override
+        public List<String> getMavenArgs() {
+            return mavenArgs;
+        }
+
+        @Override
+        public void run(
+                Map<String, String> properties,
+                File baseDirectory,
+                String moduleName,
+                File buildLogFile,
+                String... args) {
+            String goal = args[args.length - 1];
+            goals.add(goal);
+            this.args.addAll(List.of(args));
+            Path output = Path.of(properties.get("output"));
+            try {
+                if (goal.equals("help:effective-pom")) {
+                    Files.writeString(output, EFFECTIVE_POM, StandardCharsets.UTF_8);
+                } else {
+                    Files.writeString(output, "evaluated " + properties.get("expression"), StandardCharsets.UTF_8);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
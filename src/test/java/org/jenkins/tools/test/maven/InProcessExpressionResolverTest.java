@@ -0,0 +1,217 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InProcessExpressionResolverTest {
+
+    @TempDir
+    File tempDir;
+
+    private File checkout;
+
+    private File repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        checkout = new File(tempDir, "checkout");
+        repository = new File(tempDir, "repository");
+        write(
+                repository.toPath().resolve("org/jenkins-ci/plugins/plugin/4.51/plugin-4.51.pom"),
+                "<project>\n"
+                        + "  <groupId>org.jenkins-ci.plugins</groupId>\n"
+                        + "  <artifactId>plugin</artifactId>\n"
+                        + "  <version>4.51</version>\n"
+                        + "  <packaging>pom</packaging>\n"
+                        + "  <properties>\n"
+                        + "    <hpi-plugin.version>3.38</hpi-plugin.version>\n"
+                        + "    <profiled>default</profiled>\n"
+                        + "  </properties>\n"
+                        + "  <profiles>\n"
+                        + "    <profile>\n"
+                        + "      <id>example</id>\n"
+                        + "      <properties>\n"
+                        + "        <profiled>changed</profiled>\n"
+                        + "      </properties>\n"
+                        + "    </profile>\n"
+                        + "  </profiles>\n"
+                        + "</project>\n");
+        write(
+                checkout.toPath().resolve("pom.xml"),
+                "<project>\n"
+                        + "  <parent>\n"
+                        + "    <groupId>org.jenkins-ci.plugins</groupId>\n"
+                        + "    <artifactId>plugin</artifactId>\n"
+                        + "    <version>4.51</version>\n"
+                        + "    <relativePath />\n"
+                        + "  </parent>\n"
+                        + "  <groupId>io.jenkins.plugins</groupId>\n"
+                        + "  <artifactId>example-parent</artifactId>\n"
+                        + "  <version>${revision}${changelist}</version>\n"
+                        + "  <packaging>pom</packaging>\n"
+                        + "  <modules>\n"
+                        + "    <module>api</module>\n"
+                        + "    <module>impl</module>\n"
+                        + "  </modules>\n"
+                        + "  <properties>\n"
+                        + "    <revision>1.2</revision>\n"
+                        + "    <changelist>-SNAPSHOT</changelist>\n"
+                        + "    <uses-profiled>${profiled}</uses-profiled>\n"
+                        + "  </properties>\n"
+                        + "</project>\n");
+        write(
+                checkout.toPath().resolve("impl/pom.xml"),
+                "<project>\n"
+                        + "  <parent>\n"
+                        + "    <groupId>io.jenkins.plugins</groupId>\n"
+                        + "    <artifactId>example-parent</artifactId>\n"
+                        + "    <version>${revision}${changelist}</version>\n"
+                        + "  </parent>\n"
+                        + "  <artifactId>example</artifactId>\n"
+                        + "  <packaging>hpi</packaging>\n"
+                        + "  <name>Example ${project.artifactId}</name>\n"
+                        + "</project>\n");
+        write(
+                checkout.toPath().resolve("api/pom.xml"),
+                "<project>\n"
+                        + "  <parent>\n"
+                        + "    <groupId>io.jenkins.plugins</groupId>\n"
+                        + "    <artifactId>unknown-parent</artifactId>\n"
+                        + "    <version>1.0</version>\n"
+                        + "  </parent>\n"
+                        + "  <artifactId>example-api</artifactId>\n"
+                        + "</project>\n");
+        write(checkout.toPath().resolve(".mvn/maven.config"), "-Pconsume-incrementals\n-Dchangelist=-rc123.abc\n");
+    }
+
+    @Test
+    void root() {
+        InProcessExpressionResolver resolver = new InProcessExpressionResolver(checkout, null, repository);
+        assertThat(resolver.resolve("project.modules"), contains("api", "impl"));
+        assertThat(resolver.resolve("project.packaging"), contains("pom"));
+        assertThat(resolver.resolve("project.version"), contains("1.2-rc123.abc"));
+        assertThat(resolver.resolve("hpi-plugin.version"), contains("3.38"));
+    }
+
+    @Test
+    void module() {
+        InProcessExpressionResolver resolver = new InProcessExpressionResolver(checkout, "impl", repository);
+        assertThat(resolver.resolve("project.groupId"), contains("io.jenkins.plugins"));
+        assertThat(resolver.resolve("project.artifactId"), contains("example"));
+        assertThat(resolver.resolve("project.version"), contains("1.2-rc123.abc"));
+        assertThat(resolver.resolve("project.packaging"), contains("hpi"));
+        assertThat(resolver.resolve("project.name"), contains("Example example"));
+        assertThat(resolver.resolve("project.modules"), is(List.of()));
+    }
+
+    @Test
+    void declinesWhenNotConfident() {
+        InProcessExpressionResolver resolver = new InProcessExpressionResolver(checkout, "impl", repository);
+        // Defined in a profile, directly or indirectly
+        assertThat(resolver.resolve("profiled"), nullValue());
+        assertThat(resolver.resolve("uses-profiled"), nullValue());
+        // Not a POM property
+        assertThat(resolver.resolve("env.HOME"), nullValue());
+        assertThat(resolver.resolve("project.build.directory"), nullValue());
+        assertThat(resolver.resolve("undefined"), nullValue());
+        // Parent not available locally
+        resolver = new InProcessExpressionResolver(checkout, "api", repository);
+        assertThat(resolver.resolve("project.artifactId"), nullValue());
+    }
+
+    @Test
+    void honorsMavenConfiguration() throws IOException {
+        // Command-line properties override .mvn/maven.config and locate the local repository
+        InProcessExpressionResolver resolver = new InProcessExpressionResolver(
+                checkout,
+                "impl",
+                null,
+                null,
+                List.of("-Dchangelist=-rc456.def", "-Dmaven.repo.local=" + repository),
+                List.of());
+        assertThat(resolver.resolve("project.version"), contains("1.2-rc456.def"));
+        // The settings may relocate the local repository or activate profiles
+        File settings = new File(tempDir, "settings.xml");
+        write(settings.toPath(), "<settings/>");
+        resolver = new InProcessExpressionResolver(checkout, "impl", repository, settings, List.of(), List.of());
+        assertThat(resolver.resolve("project.artifactId"), nullValue());
+        // As may other arguments
+        resolver = new InProcessExpressionResolver(
+                checkout, "impl", repository, null, List.of("-f", "other/pom.xml"), List.of());
+        assertThat(resolver.resolve("project.artifactId"), nullValue());
+        // Profiles of the POMs may be activated, since the properties they define are never answered
+        resolver = new InProcessExpressionResolver(
+                checkout, "impl", repository, null, List.of("-B", "-P", "example"), List.of());
+        assertThat(resolver.resolve("project.artifactId"), contains("example"));
+        assertThat(resolver.resolve("profiled"), nullValue());
+    }
+
+    @Test
+    void honorsDefaultSettings() throws IOException {
+        File userSettings = new File(tempDir, "user-settings.xml");
+        File globalSettings = new File(tempDir, "global-settings.xml");
+        List<File> defaultSettings = List.of(userSettings, globalSettings);
+        // Settings without profiles leave the model alone, but may locate the local repository
+        write(
+                globalSettings.toPath(),
+                "<settings><localRepository>" + repository + "</localRepository><mirrors/></settings>");
+        InProcessExpressionResolver resolver =
+                new InProcessExpressionResolver(checkout, "impl", null, null, List.of(), defaultSettings);
+        assertThat(resolver.resolve("project.version"), contains("1.2-rc123.abc"));
+        // Profiles in either settings file may define properties
+        write(
+                userSettings.toPath(),
+                "<settings><activeProfiles><activeProfile>example</activeProfile></activeProfiles></settings>");
+        resolver = new InProcessExpressionResolver(checkout, "impl", repository, null, List.of(), defaultSettings);
+        assertThat(resolver.resolve("project.version"), nullValue());
+        Files.delete(userSettings.toPath());
+        write(
+                globalSettings.toPath(),
+                "<settings><profiles><profile><id>example</id><properties><changelist>-x</changelist>"
+                        + "</properties></profile></profiles></settings>");
+        resolver = new InProcessExpressionResolver(checkout, "impl", repository, null, List.of(), defaultSettings);
+        assertThat(resolver.resolve("project.version"), nullValue());
+    }
+
+    @Test
+    void declinesUnknownMavenConfigOptions() throws IOException {
+        write(checkout.toPath().resolve(".mvn/maven.config"), "-Pconsume-incrementals\n-Dchangelist=-rc123.abc\n");
+        InProcessExpressionResolver resolver = new InProcessExpressionResolver(checkout, "impl", repository);
+        assertThat(resolver.resolve("project.version"), contains("1.2-rc123.abc"));
+        // Treated the same way as the Maven arguments
+        write(checkout.toPath().resolve(".mvn/maven.config"), "-Dchangelist=-rc123.abc --file other/pom.xml\n");
+        resolver = new InProcessExpressionResolver(checkout, "impl", repository);
+        assertThat(resolver.resolve("project.version"), nullValue());
+    }
+
+    @Test
+    void evaluatorDoesNotRunMavenForSimpleExpressions() throws Exception {
+        MavenRunner runner = (properties, baseDirectory, moduleName, buildLogFile, args) -> {
+            throw new AssertionError("Maven should not have been run");
+        };
+        ExpressionEvaluator evaluator =
+                new ExpressionEvaluator(checkout, "impl", runner, new ExpressionCache(), repository);
+        assertThat(
+                evaluator
+                        .evaluateStrings(List.of("project.packaging", "project.artifactId", "project.version"))
+                        .values(),
+                contains("hpi", "example", "1.2-rc123.abc"));
+    }
+
+    private static void write(Path file, String contents) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, contents, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,128 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogPumpTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void copiesBytesToLogAndLinesToConsole() throws Exception {
+        File log = new File(tempDir, "build.log");
+        Files.writeString(log.toPath(), "previous\n", StandardCharsets.UTF_8);
+        // Not valid in any charset, so it would not survive decoding
+        byte[] output = "[INFO] café\n[INFO] ÿþ\n[INFO] no newline".getBytes(StandardCharsets.ISO_8859_1);
+        RecordingStream console = new RecordingStream();
+
+        LogPump pump = new LogPump(new TrickleInputStream(output, 5), log, BuildLog.PLAIN, console);
+        pump.start();
+        pump.join();
+
+        assertThat(pump.getFailure(), is(nullValue()));
+        byte[] expected = concat("previous\n".getBytes(StandardCharsets.UTF_8), output);
+        assertThat(Files.readAllBytes(log.toPath()), is(expected));
+        assertThat(console.toByteArray(), is(output));
+        // Every write but the last is of whole lines
+        for (int i = 0; i < console.writes.size() - 1; i++) {
+            assertThat(console.writes.get(i), endsWith("\n"));
+        }
+        assertThat(console.writes.get(console.writes.size() - 1), endsWith("no newline"));
+    }
+
+    @Test
+    void boundsMemoryForLongLines() throws Exception {
+        byte[] output = new byte[LogPump.BUFFER_SIZE * 3 + 10];
+        Arrays.fill(output, (byte) 'x');
+        output[output.length - 1] = '\n';
+        RecordingStream console = new RecordingStream();
+
+        LogPump pump = new LogPump(new ByteArrayInputStream(output), null, BuildLog.PLAIN, console);
+        pump.start();
+        pump.join();
+
+        assertThat(console.toByteArray(), is(output));
+        for (String write : console.writes) {
+            assertThat(write.length() <= LogPump.BUFFER_SIZE, is(true));
+        }
+    }
+
+    @Test
+    void logOnly() throws Exception {
+        File log = new File(tempDir, "build.log");
+        byte[] output = "a\nb\n".getBytes(StandardCharsets.UTF_8);
+
+        LogPump pump = new LogPump(new ByteArrayInputStream(output), log, BuildLog.PLAIN, null);
+        pump.start();
+        pump.join();
+
+        assertThat(Files.readAllBytes(log.toPath()), is(output));
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /** Returns at most a few bytes per read, as a pipe from a slow process would. */
+    private static final class TrickleInputStream extends InputStream {
+
+        private final ByteArrayInputStream delegate;
+
+        private final int max;
+
+        TrickleInputStream(byte[] bytes, int max) {
+            this.delegate = new ByteArrayInputStream(bytes);
+            this.max = max;
+        }
+
+        @Override
+        public int read() {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return delegate.read(b, off, Math.min(len, max));
+        }
+    }
+
+    private static final class RecordingStream extends OutputStream {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final List<String> writes = new ArrayList<>();
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes.write(b, off, len);
+            writes.add(new String(b, off, len, StandardCharsets.ISO_8859_1));
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
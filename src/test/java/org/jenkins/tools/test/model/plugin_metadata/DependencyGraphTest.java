@@ -0,0 +1,96 @@
+package org.jenkins.tools.test.model.plugin_metadata;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class DependencyGraphTest {
+
+    private static final DependencyGraph GRAPH = DependencyGraph.of(List.of(
+            plugin("git", "git-client", "credentials", "scm-api"),
+            plugin("git-client", "credentials", "not-bundled"),
+            plugin("credentials", "structs"),
+            plugin("scm-api", "structs"),
+            plugin("structs"),
+            plugin("unrelated")));
+
+    @Test
+    void direct() {
+        assertThat(GRAPH.size(), is(6));
+        assertThat(GRAPH.contains("git"), is(true));
+        // Dependencies outside the graph are ignored
+        assertThat(GRAPH.contains("not-bundled"), is(false));
+        assertThat(GRAPH.getDependencies("git-client"), is(Set.of("credentials")));
+        assertThat(GRAPH.getDependents("structs"), is(Set.of("credentials", "scm-api")));
+        assertThat(GRAPH.getDependents("git"), is(Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> GRAPH.getDependencies("not-bundled"));
+    }
+
+    @Test
+    void transitive() {
+        assertThat(
+                GRAPH.getTransitiveDependencies(List.of("git")),
+                is(Set.of("git", "git-client", "credentials", "scm-api", "structs")));
+        assertThat(
+                GRAPH.getTransitiveDependents(List.of("structs")),
+                is(Set.of("structs", "credentials", "scm-api", "git-client", "git")));
+        assertThat(
+                GRAPH.getTransitiveDependents(List.of("scm-api", "unrelated")),
+                is(Set.of("scm-api", "git", "unrelated")));
+        assertThat(GRAPH.getTransitiveDependents(List.of("not-bundled")), is(Set.of()));
+    }
+
+    @Test
+    void topologicalOrder() {
+        assertThat(
+                GRAPH.getTopologicalOrder(),
+                is(List.of("structs", "credentials", "git-client", "scm-api", "git", "unrelated")));
+    }
+
+    @Test
+    void cycle() {
+        DependencyGraph graph = DependencyGraph.of(
+                List.of(plugin("a", "b"), plugin("b", "c"), plugin("c", "b"), plugin("d"), plugin("e", "a")));
+        // The cycle and everything that depends on it come last
+        assertThat(graph.getTopologicalOrder(), is(List.of("d", "a", "b", "c", "e")));
+        assertThat(graph.getTransitiveDependents(List.of("c")), is(Set.of("a", "b", "c", "e")));
+    }
+
+    @Test
+    void large() {
+        // A chain of plugins, each depending on all of the previous ten
+        List<Plugin> plugins = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            List<String> dependencies = new ArrayList<>();
+            for (int j = Math.max(0, i - 10); j < i; j++) {
+                dependencies.add(String.format("plugin-%04d", j));
+            }
+            plugins.add(new Plugin.Builder()
+                    .withPluginId(String.format("plugin-%04d", i))
+                    .withVersion("1.0")
+                    .withGitUrl("https://example.com/plugin.git")
+                    .withDependencies(dependencies)
+                    .build());
+        }
+        DependencyGraph graph = DependencyGraph.of(plugins);
+        assertThat(graph.getTransitiveDependents(List.of("plugin-4990")).size(), is(10));
+        assertThat(graph.getTransitiveDependencies(List.of("plugin-4999")).size(), is(5000));
+        List<String> order = graph.getTopologicalOrder();
+        assertThat(order.get(0), is("plugin-0000"));
+        assertThat(order.get(4999), is("plugin-4999"));
+    }
+
+    private static Plugin plugin(String pluginId, String... dependencies) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://example.com/" + pluginId + ".git")
+                .withDependencies(List.of(dependencies))
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package org.jenkins.tools.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.Manifest;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class NestedArchiveReaderTest {
+
+    @TempDir
+    File tempDir;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void readsEntriesOfNestedArchive(boolean stored) throws Exception {
+        File war = SyntheticMegawar.create(new File(tempDir, "megawar.war"), 3, 64 * 1024, stored);
+        try (NestedArchiveReader reader = new NestedArchiveReader(war);
+                NestedArchiveReader.NestedArchive hpi = reader.open("WEB-INF/plugins/plugin-1.hpi")) {
+            assertThat(hpi, notNullValue());
+
+            Manifest manifest = hpi.getManifest();
+            assertThat(manifest, notNullValue());
+            assertThat(manifest.getMainAttributes().getValue("Short-Name"), is("plugin-1"));
+
+            try (InputStream is = hpi.getInputStream("META-INF/maven/org.example/plugin-1/pom.xml")) {
+                assertThat(is, notNullValue());
+                assertThat(
+                        new String(is.readAllBytes(), StandardCharsets.UTF_8),
+                        containsString("<artifactId>plugin-1</artifactId>"));
+            }
+            try (InputStream is = hpi.getInputStream("WEB-INF/lib/plugin-1.jar")) {
+                assertThat(is.readAllBytes().length, is(64 * 1024));
+            }
+            assertThat(hpi.getInputStream("META-INF/maven/org.example/plugin-2/pom.xml"), nullValue());
+            // Entries before the last one read
+            assertThat(hpi.getManifest().getMainAttributes().getValue("Short-Name"), is("plugin-1"));
+            try (InputStream is = hpi.getInputStream("WEB-INF/lib/plugin-1.jar")) {
+                assertThat(is.readAllBytes().length, is(64 * 1024));
+            }
+            assertThat(reader.open("WEB-INF/plugins/plugin-3.hpi"), nullValue());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.jenkins.tools.test.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Builds megawars with synthetic plugins, as laid out by {@code maven-hpi-plugin}: the manifest first, then the
+ * bundled libraries, and the POM last.
+ */
+final class SyntheticMegawar {
+
+    private SyntheticMegawar() {}
+
+    /**
+     * Create a megawar with plugins named {@code plugin-0} to {@code plugin-(count - 1)}, in reverse order. Every tenth
+     * plugin (starting with {@code plugin-0}) is a legacy plugin, whose metadata is only in its POM. Every other plugin
+     * depends on {@code plugin-(i / 2)}, and every third one also optionally on {@code plugin-(i - 1)}, so the plugins
+     * form a tree rooted at {@code plugin-0}.
+     *
+     * @param libraryBytes the size of the (compressible) library bundled in each plugin
+     */
+    static File create(File war, int count, int libraryBytes) throws IOException {
+        return create(war, count, libraryBytes, false);
+    }
+
+    /**
+     * Create a megawar as {@link #create(File, int, int)} does.
+     *
+     * @param stored whether the plugins are stored uncompressed in the megawar
+     */
+    static File create(File war, int count, int libraryBytes, boolean stored) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Jenkins-Version", "2.400");
+        Random random = new Random(42);
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(war.toPath()), manifest)) {
+            for (int i = count - 1; i >= 0; i--) {
+                String dependencies = null;
+                if (i > 0) {
+                    dependencies = "plugin-" + (i / 2) + ":1.0";
+                    if (i % 3 == 0) {
+                        dependencies += ",plugin-" + (i - 1) + ":1.0;resolution:=optional";
+                    }
+                }
+                byte[] hpi = createHpi("plugin-" + i, i % 10 != 0, dependencies, libraryBytes, random);
+                JarEntry entry = new JarEntry("WEB-INF/plugins/plugin-" + i + ".hpi");
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(hpi);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(hpi.length);
+                    entry.setCrc(crc.getValue());
+                }
+                jos.putNextEntry(entry);
+                jos.write(hpi);
+                jos.closeEntry();
+            }
+        }
+        return war;
+    }
+
+    /**
+     * Add an entry with a modern plugin to an existing megawar.
+     *
+     * @param pluginId the short name of the plugin, which need not match the entry name, or {@code null} for an HPI
+     *     without any plugin metadata
+     */
+    static void addPlugin(File war, String entryName, String pluginId) throws IOException {
+        byte[] hpi;
+        if (pluginId != null) {
+            hpi = createHpi(pluginId, true, null, 16, new Random(42));
+        } else {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Manifest manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            new JarOutputStream(baos, manifest).close();
+            hpi = baos.toByteArray();
+        }
+        File tmp = new File(war.getPath() + ".tmp");
+        try (JarFile jf = new JarFile(war);
+                JarOutputStream jos = new JarOutputStream(Files.newOutputStream(tmp.toPath()), jf.getManifest())) {
+            for (JarEntry entry : Collections.list(jf.entries())) {
+                if (entry.getName().equals(JarFile.MANIFEST_NAME)) {
+                    continue;
+                }
+                jos.putNextEntry(new JarEntry(entry.getName()));
+                try (InputStream is = jf.getInputStream(entry)) {
+                    is.transferTo(jos);
+                }
+                jos.closeEntry();
+            }
+            jos.putNextEntry(new JarEntry(entryName));
+            jos.write(hpi);
+            jos.closeEntry();
+        }
+        Files.move(tmp.toPath(), war.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] createHpi(
+            String pluginId, boolean modern, String dependencies, int libraryBytes, Random random) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Group-Id", "org.example");
+        attributes.putValue("Short-Name", pluginId);
+        attributes.putValue("Long-Name", "Plugin " + pluginId);
+        attributes.putValue("Plugin-Version", "1.0");
+        attributes.putValue("Jenkins-Version", "2.400");
+        if (dependencies != null) {
+            attributes.putValue("Plugin-Dependencies", dependencies);
+        }
+        if (modern) {
+            attributes.putValue("Plugin-ScmConnection", "scm:git:https://github.com/example/" + pluginId + ".git");
+            attributes.putValue("Plugin-ScmTag", pluginId + "-1.0");
+            attributes.putValue("Plugin-GitHash", "0123456789abcdef0123456789abcdef01234567");
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(baos, manifest)) {
+            jos.putNextEntry(new JarEntry("WEB-INF/lib/" + pluginId + ".jar"));
+            writeLibrary(jos, libraryBytes, random);
+            jos.closeEntry();
+            jos.putNextEntry(new JarEntry("META-INF/maven/org.example/" + pluginId + "/pom.xml"));
+            jos.write(("<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId><artifactId>"
+                            + pluginId
+                            + "</artifactId><version>1.0</version><packaging>hpi</packaging><scm><connection>"
+                            + "scm:git:https://github.com/example/${project.artifactId}.git</connection><tag>"
+                            + pluginId
+                            + "-1.0</tag></scm></project>")
+                    .getBytes(StandardCharsets.UTF_8));
+            jos.closeEntry();
+        }
+        return baos.toByteArray();
+    }
+
+    private static void writeLibrary(OutputStream os, int bytes, Random random) throws IOException {
+        byte[] buffer = new byte[bytes];
+        for (int i = 0; i < bytes; i++) {
+            buffer[i] = (byte) ('a' + random.nextInt(16));
+        }
+        os.write(buffer);
+    }
+}
@@ -2,6 +2,8 @@ package org.jenkins.tools.test.util;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -10,14 +12,23 @@ import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import org.jenkins.tools.test.exception.MetadataExtractionException;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class WarExtractorTest {
 
+    private static final Logger LOGGER = Logger.getLogger(WarExtractorTest.class.getName());
+
     @Test
     void testExtractCoreVersion() throws Exception {
         WarExtractor warExtractor =
@@ -50,4 +61,134 @@ class WarExtractorTest {
                 new File("target", "megawar.war"), new ServiceHelper(Set.of()), Set.of("bogus-plugin-id"), Set.of());
         assertThrows(MetadataExtractionException.class, () -> warExtractor.extractPlugins());
     }
+
+    @Test
+    void extractsConcurrentlyInPluginIdOrder(@TempDir File tempDir) throws Exception {
+        File war = SyntheticMegawar.create(new File(tempDir, "megawar.war"), 100, 256 * 1024);
+        long start = System.nanoTime();
+        List<Plugin> serial =
+                new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of(), null, 1).extractPlugins();
+        long serialNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<Plugin> concurrent =
+                new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of(), null, 4).extractPlugins();
+        long concurrentNanos = System.nanoTime() - start;
+        LOGGER.log(Level.INFO, "Extracted {0} plugins in {1} ms with 1 thread and {2} ms with 4 threads", new Object[] {
+            concurrent.size(), serialNanos / 1_000_000, concurrentNanos / 1_000_000
+        });
+
+        assertThat(concurrent, is(serial));
+        List<String> pluginIds = concurrent.stream().map(Plugin::getPluginId).collect(Collectors.toList());
+        assertThat(pluginIds, hasSize(100));
+        assertThat(pluginIds, is(pluginIds.stream().sorted().collect(Collectors.toList())));
+        assertThat(
+                concurrent.get(0),
+                allOf(
+                        hasProperty("pluginId", is("plugin-0")),
+                        hasProperty("gitUrl", is("https://github.com/example/plugin-0.git")),
+                        hasProperty("version", is("1.0"))));
+        // A legacy plugin, from the POM
+        assertThat(concurrent.get(0), hasProperty("gitHash", is("plugin-0-1.0")));
+        // A modern plugin, from the manifest
+        assertThat(concurrent.get(1), hasProperty("gitHash", is("0123456789abcdef0123456789abcdef01234567")));
+    }
+
+    @Test
+    void reusesIndexAcrossShards(@TempDir File tempDir) throws Exception {
+        File war = SyntheticMegawar.create(new File(tempDir, "megawar.war"), 20, 1024);
+        File indexDir = new File(tempDir, "index");
+        List<Plugin> all =
+                new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of(), null, 1).extractPlugins();
+
+        List<Plugin> shard = new WarExtractor(war, new ServiceHelper(Set.of()), Set.of("plugin-3"), Set.of(), indexDir)
+                .extractPlugins();
+        assertThat(
+                shard,
+                is(all.stream()
+                        .filter(plugin -> plugin.getPluginId().equals("plugin-3"))
+                        .collect(Collectors.toList())));
+        File[] indexes = indexDir.listFiles();
+        assertThat(indexes.length, is(1));
+
+        // A copy of the same WAR shares the index
+        File copy = new File(tempDir, "copy.war");
+        Files.copy(war.toPath(), copy.toPath());
+        assertThat(
+                new WarExtractor(copy, new ServiceHelper(Set.of()), Set.of(), Set.of("plugin-3"), indexDir)
+                        .extractPlugins(),
+                hasSize(19));
+        assertThat(indexDir.listFiles().length, is(1));
+
+        // A different WAR gets its own index
+        SyntheticMegawar.create(war, 10, 1024);
+        assertThat(
+                new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of(), indexDir).extractPlugins(),
+                hasSize(10));
+        assertThat(indexDir.listFiles().length, is(2));
+        assertThrows(MetadataExtractionException.class, () -> new WarExtractor(
+                        war, new ServiceHelper(Set.of()), Set.of("plugin-19"), Set.of(), indexDir)
+                .extractPlugins());
+    }
+
+    @Test
+    void filtersIndexedPluginsByEntryName(@TempDir File tempDir) throws Exception {
+        File war = SyntheticMegawar.create(new File(tempDir, "megawar.war"), 5, 1024);
+        SyntheticMegawar.addPlugin(war, "WEB-INF/plugins/broken.hpi", null);
+        SyntheticMegawar.addPlugin(war, "WEB-INF/plugins/renamed.hpi", "plugin-x");
+        File indexDir = new File(tempDir, "index");
+
+        // An excluded entry without metadata does not prevent indexing the others
+        assertThat(
+                new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of("broken"), indexDir)
+                        .extractPlugins(),
+                hasSize(6));
+        assertThat(indexDir.listFiles().length, is(1));
+        assertThrows(MetadataExtractionException.class, () -> new WarExtractor(
+                        war, new ServiceHelper(Set.of()), Set.of(), Set.of(), indexDir)
+                .extractPlugins());
+
+        // Plugins are selected by entry name rather than by short name, as without an index
+        for (File dir : new File[] {indexDir, null}) {
+            assertThat(
+                    new WarExtractor(war, new ServiceHelper(Set.of()), Set.of("renamed"), Set.of(), dir)
+                            .extractPlugins(),
+                    contains(hasProperty("pluginId", is("plugin-x"))));
+            assertThrows(MetadataExtractionException.class, () -> new WarExtractor(
+                            war, new ServiceHelper(Set.of()), Set.of("plugin-x"), Set.of(), dir)
+                    .extractPlugins());
+        }
+    }
+
+    @Test
+    void extractsDependencies(@TempDir File tempDir) throws Exception {
+        File war = SyntheticMegawar.create(new File(tempDir, "megawar.war"), 10, 1024);
+        Map<String, Plugin> plugins = new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of(), null)
+                .extractPlugins().stream().collect(Collectors.toMap(Plugin::getPluginId, plugin -> plugin));
+        assertThat(plugins.get("plugin-0").getDependencies(), is(empty()));
+        assertThat(plugins.get("plugin-4").getDependencies(), is(Set.of("plugin-2")));
+        // Including optional dependencies
+        assertThat(plugins.get("plugin-6").getDependencies(), is(Set.of("plugin-3", "plugin-5")));
+        assertThat(plugins.get("plugin-6").getRequiredCoreVersion(), is("2.400"));
+    }
+
+    @Test
+    void extractsManifests(@TempDir File tempDir) throws Exception {
+        File war = SyntheticMegawar.create(new File(tempDir, "megawar.war"), 10, 1024);
+        Map<String, Manifest> manifests = new WarExtractor(
+                        war, new ServiceHelper(Set.of()), Set.of("plugin-3"), Set.of(), null)
+                .extractManifests();
+        // Regardless of the included plugins
+        assertThat(manifests.size(), is(10));
+        assertThat(
+                manifests.get("plugin-6").getMainAttributes().getValue("Plugin-Dependencies"), startsWith("plugin-3:"));
+    }
+
+    @Test
+    void parsesDependencies() {
+        assertThat(WarExtractor.parseDependencies(null), is(empty()));
+        assertThat(WarExtractor.parseDependencies(""), is(empty()));
+        assertThat(
+                WarExtractor.parseDependencies("credentials:2.6.1, ssh-credentials:1.18;resolution:=optional"),
+                is(Set.of("credentials", "ssh-credentials")));
+    }
 }